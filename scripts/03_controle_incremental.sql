@@ -0,0 +1,51 @@
+-- ============================================
+-- RERONO PARDINI API
+-- Controle do getResultado incremental (watermark)
+-- Oracle Database 12c+
+-- ============================================
+
+-- DROP TABLE DBAMV.RERONO_WATERMARK CASCADE CONSTRAINTS;
+
+-- ============================================
+-- TABELA: RERONO_WATERMARK
+-- Fim do último período processado com sucesso, por chave.
+-- Avançado na mesma transação do upsert do RERONO_PARDINI_MAPA.
+-- ============================================
+CREATE TABLE DBAMV.RERONO_WATERMARK (
+    CHAVE                   VARCHAR2(100)   NOT NULL,
+    DT_WATERMARK            TIMESTAMP       NOT NULL,
+    DT_ATUALIZACAO          TIMESTAMP       DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT PK_RERONO_WATERMARK PRIMARY KEY (CHAVE)
+);
+
+COMMENT ON TABLE DBAMV.RERONO_WATERMARK IS 'High-water mark das consultas incrementais ao Pardini';
+COMMENT ON COLUMN DBAMV.RERONO_WATERMARK.CHAVE IS 'Identificador da consulta (ex.: PARDINI_GETRESULTADO_MAPA)';
+COMMENT ON COLUMN DBAMV.RERONO_WATERMARK.DT_WATERMARK IS 'Fim do último período processado e commitado';
+
+
+
+-- ============================================
+-- TABELA: RERONO_BACKFILL_FATIA
+-- Checkpoint do --backfill: fatias do período já gravadas no mapa.
+-- Marcada na mesma transação do upsert; um backfill interrompido
+-- retoma pulando as fatias concluídas.
+-- ============================================
+-- DROP TABLE DBAMV.RERONO_BACKFILL_FATIA CASCADE CONSTRAINTS;
+
+CREATE TABLE DBAMV.RERONO_BACKFILL_FATIA (
+    CHAVE                   VARCHAR2(100)   NOT NULL,
+    DT_INICIO               TIMESTAMP       NOT NULL,
+    DT_FIM                  TIMESTAMP       NOT NULL,
+    QT_PARES                NUMBER          DEFAULT 0 NOT NULL,
+    DT_CONCLUSAO            TIMESTAMP       DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT PK_RERONO_BACKFILL_FATIA PRIMARY KEY (CHAVE, DT_INICIO)
+);
+
+COMMENT ON TABLE DBAMV.RERONO_BACKFILL_FATIA IS 'Fatias concluídas de cada backfill do getResultado';
+COMMENT ON COLUMN DBAMV.RERONO_BACKFILL_FATIA.CHAVE IS 'Identifica o backfill (período + tamanho da fatia)';
+COMMENT ON COLUMN DBAMV.RERONO_BACKFILL_FATIA.QT_PARES IS 'Pares CodPedLab/CodPedApoio gravados (inseridos + atualizados)';
+
+
+-- ============================================
+-- FIM DO SCRIPT
+-- ============================================
@@ -0,0 +1,28 @@
+-- ============================================
+-- RERONO PARDINI API
+-- Ano aprendido por CodPedApoio
+-- Oracle Database 12c+
+-- ============================================
+
+-- DROP TABLE DBAMV.RERONO_ANO_PEDIDO CASCADE CONSTRAINTS;
+
+-- ============================================
+-- TABELA: RERONO_ANO_PEDIDO
+-- anoCodPedApoio que de fato funcionou no getResultadoPedido.
+-- O worker tenta esse ano primeiro e evita o fallback ano a ano.
+-- ============================================
+CREATE TABLE DBAMV.RERONO_ANO_PEDIDO (
+    COD_PED_APOIO           VARCHAR2(50)    NOT NULL,
+    ANO_COD_PED_APOIO       NUMBER(4)       NOT NULL,
+    DT_ATUALIZACAO          TIMESTAMP       DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT PK_RERONO_ANO_PEDIDO PRIMARY KEY (COD_PED_APOIO)
+);
+
+COMMENT ON TABLE DBAMV.RERONO_ANO_PEDIDO IS 'Ano do CodPedApoio confirmado no getResultadoPedido';
+
+CREATE INDEX IDX_RERONO_ANO_PEDIDO_DT ON DBAMV.RERONO_ANO_PEDIDO(DT_ATUALIZACAO);
+
+
+-- ============================================
+-- FIM DO SCRIPT
+-- ============================================
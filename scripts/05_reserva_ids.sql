@@ -0,0 +1,28 @@
+-- ============================================
+-- RERONO PARDINI API
+-- Reserva de IDs (sem sequência no MV2000)
+-- Oracle Database 12c+
+-- ============================================
+
+-- DROP TABLE DBAMV.RERONO_ID_RESERVA CASCADE CONSTRAINTS;
+
+-- ============================================
+-- TABELA: RERONO_ID_RESERVA
+-- Próximo ID livre por tabela, usado só quando SEQ_ARQUIVO_DOCUMENTO /
+-- SEQ_ARQUIVO_ATENDIMENTO não existem. A linha é criada pela integração com
+-- MAX + 1 da tabela; cada reserva trava a linha em uma transação curta própria e
+-- avança PROXIMO_ID em mv2000.id.block.size.
+-- ============================================
+CREATE TABLE DBAMV.RERONO_ID_RESERVA (
+    TABELA                  VARCHAR2(60)    NOT NULL,
+    PROXIMO_ID              NUMBER(18)      NOT NULL,
+    DT_ATUALIZACAO          TIMESTAMP       DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT PK_RERONO_ID_RESERVA PRIMARY KEY (TABELA)
+);
+
+COMMENT ON TABLE DBAMV.RERONO_ID_RESERVA IS 'IDs reservados pela integração quando não há sequência';
+
+
+-- ============================================
+-- FIM DO SCRIPT
+-- ============================================
@@ -0,0 +1,31 @@
+-- ============================================
+-- RERONO PARDINI API
+-- Índice de anexos por conteúdo (SHA-256)
+-- Oracle Database 12c+
+-- ============================================
+
+-- DROP TABLE DBAMV.RERONO_ANEXO_HASH CASCADE CONSTRAINTS;
+
+-- ============================================
+-- TABELA: RERONO_ANEXO_HASH
+-- Um documento (laudo/gráfico) já anexado a um atendimento, pelo SHA-256 do conteúdo.
+-- Gravado na mesma transação do ARQUIVO_DOCUMENTO; a PK impede o mesmo conteúdo
+-- duas vezes no mesmo atendimento, inclusive entre nós concorrentes.
+-- ============================================
+CREATE TABLE DBAMV.RERONO_ANEXO_HASH (
+    HASH_CONTEUDO           VARCHAR2(64)    NOT NULL,
+    CD_ATENDIMENTO          NUMBER(18)      NOT NULL,
+    CD_ARQUIVO_DOCUMENTO    NUMBER(18)      NOT NULL,
+    DS_NOME_ARQUIVO         VARCHAR2(200),
+    DT_CRIACAO              TIMESTAMP       DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT PK_RERONO_ANEXO_HASH PRIMARY KEY (HASH_CONTEUDO, CD_ATENDIMENTO)
+);
+
+COMMENT ON TABLE DBAMV.RERONO_ANEXO_HASH IS 'Documentos anexados no MV2000 por SHA-256 e atendimento (idempotência)';
+
+CREATE INDEX IDX_RERONO_ANEXO_HASH_DT ON DBAMV.RERONO_ANEXO_HASH(DT_CRIACAO);
+
+
+-- ============================================
+-- FIM DO SCRIPT
+-- ============================================
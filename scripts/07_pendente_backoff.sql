@@ -0,0 +1,34 @@
+-- ============================================
+-- RERONO PARDINI API
+-- Backoff de CD_PED_LAB ainda não liberados pelo Pardini
+-- Oracle Database 12c+
+-- ============================================
+
+-- DROP TABLE DBAMV.RERONO_PENDENTE_BACKOFF CASCADE CONSTRAINTS;
+
+-- ============================================
+-- TABELA: RERONO_PENDENTE_BACKOFF
+-- Pendente que não pôde ser processado (sem mapeamento ou sem laudo no Pardini).
+-- A cada nova falha o intervalo dobra (até o máximo); passado o horizonte desde a
+-- primeira falha, desiste. A linha some quando o pedido é anexado ou quando o
+-- mapa recebe um CodPedApoio novo para ele.
+-- ============================================
+CREATE TABLE DBAMV.RERONO_PENDENTE_BACKOFF (
+    CD_PED_LAB              VARCHAR2(50)    NOT NULL,
+    QT_TENTATIVAS           NUMBER(6)       DEFAULT 1 NOT NULL,
+    DT_PRIMEIRA_FALHA       TIMESTAMP       DEFAULT SYSTIMESTAMP NOT NULL,
+    DT_PROXIMA_TENTATIVA    TIMESTAMP       NOT NULL,
+    SN_DESISTIDO            CHAR(1)         DEFAULT 'N' NOT NULL,
+    DS_MOTIVO               VARCHAR2(400),
+    DT_ATUALIZACAO          TIMESTAMP       DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT PK_RERONO_PENDENTE_BACKOFF PRIMARY KEY (CD_PED_LAB),
+    CONSTRAINT CK_RERONO_BACKOFF_DESISTIDO CHECK (SN_DESISTIDO IN ('S', 'N'))
+);
+
+COMMENT ON TABLE DBAMV.RERONO_PENDENTE_BACKOFF IS 'CD_PED_LAB fora da seleção de pendentes até a próxima tentativa';
+COMMENT ON COLUMN DBAMV.RERONO_PENDENTE_BACKOFF.SN_DESISTIDO IS 'S = passou do horizonte; só volta com novo mapeamento';
+
+
+-- ============================================
+-- FIM DO SCRIPT
+-- ============================================
@@ -0,0 +1,30 @@
+-- ============================================
+-- RERONO PARDINI API
+-- Leases de CD_PED_LAB entre instâncias do worker
+-- Oracle Database 12c+
+-- ============================================
+
+-- DROP TABLE DBAMV.RERONO_LEASE_PEDIDO CASCADE CONSTRAINTS;
+
+-- ============================================
+-- TABELA: RERONO_LEASE_PEDIDO
+-- Quem está processando cada CD_PED_LAB e até quando. Uma instância só pega o
+-- pedido sem lease ou com lease vencido; o dono renova (heartbeat) enquanto o
+-- ciclo roda e apaga ao terminar. Se o nó cair, o lease vence e outro assume.
+-- ============================================
+CREATE TABLE DBAMV.RERONO_LEASE_PEDIDO (
+    CD_PED_LAB              VARCHAR2(50)    NOT NULL,
+    NM_NO                   VARCHAR2(100)   NOT NULL,
+    DT_EXPIRA               TIMESTAMP       NOT NULL,
+    DT_REIVINDICACAO        TIMESTAMP       DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT PK_RERONO_LEASE_PEDIDO PRIMARY KEY (CD_PED_LAB)
+);
+
+COMMENT ON TABLE DBAMV.RERONO_LEASE_PEDIDO IS 'Lease de processamento por CD_PED_LAB (várias instâncias do worker)';
+
+CREATE INDEX IDX_RERONO_LEASE_NO ON DBAMV.RERONO_LEASE_PEDIDO(NM_NO);
+
+
+-- ============================================
+-- FIM DO SCRIPT
+-- ============================================
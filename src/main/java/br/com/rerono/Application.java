@@ -5,9 +5,15 @@ import br.com.rerono.config.DatabaseConfig;
 import br.com.rerono.model.ResultadoPardini;
 import br.com.rerono.scheduler.JobScheduler;
 import br.com.rerono.soap.HpwsClient;
+import br.com.rerono.soap.HpwsTransportBenchmark;
+import br.com.rerono.worker.BackfillMapaPardini;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
 /**
  * Classe principal da aplicação Rerono Pardini API.
  * Integração entre Hermes Pardini (HPWS.XMLServer) e MV2000.
@@ -89,6 +95,14 @@ public class Application {
                 executarUmaVez();
                 break;
                 
+            case "--bench-transport":
+                benchmarkTransporte(args);
+                break;
+                
+            case "--backfill":
+                executarBackfill(args);
+                break;
+                
             case "--version":
             case "-v":
                 logger.info("Rerono Pardini API v1.0.0-SNAPSHOT");
@@ -118,6 +132,14 @@ public class Application {
                               Testa chamada SOAP getResultadoPedido
                               Exemplo: --test-getResultadoPedido 2026 1419652 0
               --run-once      Executa um ciclo e encerra
+              --backfill <de> <ate>
+                              Reconstrói o mapa CodPedLab -> CodPedApoio do período
+                              (yyyy-MM-dd ou yyyy-MM-ddTHH:mm), em fatias paralelas;
+                              rodar de novo retoma de onde parou
+                              Exemplo: --backfill 2026-01-01 2026-01-31
+              --bench-transport [chamadas]
+                              Compara os transportes HTTP (urlconnection x httpclient)
+                              contra um stub HTTPS local (default: 200 chamadas)
             
             Variáveis de ambiente:
               PARDINI_PASSWD  Senha do Hermes Pardini
@@ -290,6 +312,10 @@ public class Application {
             validarConexoes();
             
             var worker = new br.com.rerono.worker.IntegracaoWorker();
+            if (AppConfig.getInstance().getSchedulerMapaIntervalMinutes() > 0) {
+                // sem o job do mapa rodando, o ciclo único atualiza o mapa antes
+                worker.atualizarMapaPardini();
+            }
             int processados = worker.executarCiclo();
             
             logger.info("Ciclo concluído: {} pedidos processados", processados);
@@ -301,6 +327,66 @@ public class Application {
         }
     }
     
+    /**
+     * Backfill do mapa CodPedLab -> CodPedApoio num período.
+     * Uso: --backfill <de> <ate>   (yyyy-MM-dd ou yyyy-MM-ddTHH:mm; data sem hora em <ate> = fim do dia)
+     */
+    private static void executarBackfill(String[] args) {
+        if (args.length < 3) {
+            logger.error("Uso: --backfill <de> <ate>");
+            logger.error("Exemplo: --backfill 2026-01-01 2026-01-31");
+            System.exit(1);
+            return;
+        }
+        
+        try {
+            LocalDateTime de = lerDataHora(args[1], false);
+            LocalDateTime ate = lerDataHora(args[2], true);
+            
+            validarConexoes();
+            
+            boolean completo = new BackfillMapaPardini().executar(de, ate);
+            
+            DatabaseConfig.getInstance().shutdown();
+            if (!completo) {
+                logger.warn("Backfill com fatias pendentes: rode o mesmo comando de novo para retomar");
+                System.exit(2);
+            }
+            
+        } catch (DateTimeParseException e) {
+            logger.error("Data inválida ({}). Use yyyy-MM-dd ou yyyy-MM-ddTHH:mm", e.getParsedString());
+            System.exit(1);
+        } catch (Exception e) {
+            logger.error("Erro no backfill: {}", e.getMessage(), e);
+            System.exit(1);
+        }
+    }
+    
+    private static LocalDateTime lerDataHora(String valor, boolean fimDoDia) {
+        if (valor.length() == 10) {
+            LocalDate d = LocalDate.parse(valor);
+            return fimDoDia ? d.plusDays(1).atStartOfDay() : d.atStartOfDay();
+        }
+        return LocalDateTime.parse(valor);
+    }
+    
+    /**
+     * Benchmark local dos transportes HTTP do SOAP (não acessa o Pardini nem o Oracle).
+     * Uso: --bench-transport [chamadas]
+     */
+    private static void benchmarkTransporte(String[] args) {
+        try {
+            int chamadas = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+            HpwsTransportBenchmark.executar(chamadas);
+        } catch (NumberFormatException e) {
+            logger.error("Parâmetro inválido. Uso: --bench-transport [chamadas]");
+            System.exit(1);
+        } catch (Exception e) {
+            logger.error("Erro no benchmark de transporte: {}", e.getMessage(), e);
+            System.exit(1);
+        }
+    }
+    
     private static void shutdown() {
         logger.info("Encerrando aplicação...");
         
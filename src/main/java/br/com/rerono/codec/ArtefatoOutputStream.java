@@ -0,0 +1,68 @@
+package br.com.rerono.codec;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * OutputStream que, na mesma passada da escrita, calcula o SHA-256,
+ * conta os bytes e guarda o cabeçalho (assinatura PDF/PNG/JPG).
+ * Mesmo papel do DigestOutputStream, mas sem uma segunda leitura para tamanho/tipo.
+ */
+public class ArtefatoOutputStream extends FilterOutputStream {
+
+    private static final int TAMANHO_HEADER = 8;
+
+    private final MessageDigest digest;
+    private final byte[] header = new byte[TAMANHO_HEADER];
+    private long tamanho;
+
+    public ArtefatoOutputStream(OutputStream destino) {
+        super(destino);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 não suportado", e);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        digest.update((byte) b);
+        if (tamanho < TAMANHO_HEADER) header[(int) tamanho] = (byte) b;
+        tamanho++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        digest.update(b, off, len);
+        if (tamanho < TAMANHO_HEADER) {
+            int n = (int) Math.min(len, TAMANHO_HEADER - tamanho);
+            System.arraycopy(b, off, header, (int) tamanho, n);
+        }
+        tamanho += len;
+    }
+
+    public long getTamanho() {
+        return tamanho;
+    }
+
+    /** SHA-256 em hex; chamar só depois de toda a escrita. */
+    public String getHash() {
+        return tamanho == 0 ? null : Base64Handler.bytesToHex(digest.digest());
+    }
+
+    /** PDF, PNG, JPG ou BIN, pelos primeiros bytes escritos. */
+    public String getTipo() {
+        byte[] h = header;
+        if (tamanho < TAMANHO_HEADER) {
+            h = new byte[(int) tamanho];
+            System.arraycopy(header, 0, h, 0, h.length);
+        }
+        return Base64Handler.detectFileType(h);
+    }
+}
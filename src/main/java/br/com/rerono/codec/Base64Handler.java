@@ -1,8 +1,18 @@
 package br.com.rerono.codec;
 
+import br.com.rerono.model.ArtefatoPardini;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
@@ -11,6 +21,10 @@ public class Base64Handler {
     
     private static final Logger logger = LoggerFactory.getLogger(Base64Handler.class);
     
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
     public static byte[] decode(String base64String) {
         if (base64String == null || base64String.isEmpty()) {
             logger.warn("Tentativa de decodificar string Base64 nula ou vazia");
@@ -45,18 +59,126 @@ public class Base64Handler {
         return Base64.getEncoder().encodeToString(data);
     }
     
+    /**
+     * Remove espaços/quebras de linha e o BOM numa única passada (sem regex).
+     */
     public static String normalize(String input) {
         if (input == null) {
             return "";
         }
         
-        String normalized = input.replaceAll("\\s+", "");
+        StringBuilder sb = new StringBuilder(input.length());
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (!ignorar(c)) {
+                sb.append(c);
+            }
+        }
+        
+        return sb.toString();
+    }
+    
+    /**
+     * Decodifica em streaming: lê o Base64 do Reader (ignorando espaços, quebras e BOM
+     * no caminho) e escreve os bytes direto no OutputStream.
+     * Nenhuma cópia integral do texto ou do binário fica na memória.
+     *
+     * @return quantidade de bytes decodificados
+     */
+    public static long decode(Reader base64, OutputStream destino) throws IOException {
+        long total = 0;
         
-        if (normalized.startsWith("\uFEFF")) {
-            normalized = normalized.substring(1);
+        try (InputStream decoder = Base64.getDecoder().wrap(new TextoBase64InputStream(base64))) {
+            byte[] buf = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = decoder.read(buf)) > 0) {
+                destino.write(buf, 0, n);
+                total += n;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("String Base64 inválida: " + e.getMessage(), e);
         }
         
-        return normalized.trim();
+        logger.debug("Base64 decodificado em streaming: {} bytes", total);
+        return total;
+    }
+    
+    /**
+     * Decodifica, calcula SHA-256/tamanho e identifica o tipo numa única passada,
+     * gravando direto no arquivo (via FileChannel).
+     *
+     * @return descritor do artefato (tamanho 0 = tag vazia)
+     */
+    public static ArtefatoPardini decodeToFile(Reader base64, Path destino) throws IOException {
+        ArtefatoOutputStream analise;
+        try (FileChannel ch = FileChannel.open(destino,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             ArtefatoOutputStream out = new ArtefatoOutputStream(Channels.newOutputStream(ch))) {
+            decode(base64, out);
+            analise = out;
+        }
+        return ArtefatoPardini.emArquivo(destino, analise.getTamanho(), analise.getHash(), analise.getTipo());
+    }
+    
+    /**
+     * Mesmo pipeline de decodeToFile, mas mantendo o conteúdo em memória.
+     */
+    public static ArtefatoPardini decodeToMemory(Reader base64) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ArtefatoOutputStream out = new ArtefatoOutputStream(bytes);
+        decode(base64, out);
+        return ArtefatoPardini.emMemoria(bytes.toByteArray(), out.getHash(), out.getTipo());
+    }
+    
+    private static boolean ignorar(char c) {
+        return c == '\uFEFF' || Character.isWhitespace(c);
+    }
+    
+    /**
+     * Converte o texto Base64 em bytes ASCII para o decoder,
+     * descartando espaços, quebras de linha e BOM à medida que lê.
+     */
+    private static final class TextoBase64InputStream extends InputStream {
+        
+        private final Reader reader;
+        private final char[] chars = new char[BUFFER_SIZE];
+        private int pos;
+        private int fim;
+        
+        TextoBase64InputStream(Reader reader) {
+            this.reader = reader;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            while (true) {
+                if (pos >= fim) {
+                    fim = reader.read(chars, 0, chars.length);
+                    pos = 0;
+                    if (fim <= 0) {
+                        fim = 0;
+                        return -1;
+                    }
+                }
+                char c = chars[pos++];
+                if (!ignorar(c)) {
+                    // fora do ASCII vira um byte inválido para o decoder reclamar
+                    return c < 0x80 ? c : '!';
+                }
+            }
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = 0;
+            while (n < len) {
+                if (pos >= fim && n > 0) break;
+                int c = read();
+                if (c < 0) break;
+                b[off + n++] = (byte) c;
+            }
+            return (n == 0 && len > 0) ? -1 : n;
+        }
     }
     
     public static String calculateSha256(byte[] data) {
@@ -74,12 +196,14 @@ public class Base64Handler {
         }
     }
     
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
+    static String bytesToHex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xFF;
+            out[i * 2] = HEX[v >>> 4];
+            out[i * 2 + 1] = HEX[v & 0x0F];
         }
-        return sb.toString();
+        return new String(out);
     }
     
     public static boolean isValidBase64(String input) {
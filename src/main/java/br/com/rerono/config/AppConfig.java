@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.time.Year;
 import java.util.Properties;
 
@@ -123,6 +124,41 @@ public class AppConfig {
         return Integer.parseInt(properties.getProperty("pardini.soap.timeout.read", "60000"));
     }
 
+    /**
+     * Prazo da chamada SOAP inteira, incluindo o download do corpo (httpclient).
+     */
+    public int getPardiniTotalTimeout() {
+        return Integer.parseInt(properties.getProperty("pardini.soap.timeout.total", "300000"));
+    }
+
+    /**
+     * Parser da resposta do getResultadoPedido: "stax" (streaming, default) ou "legacy" (String + indexOf).
+     */
+    public String getPardiniSoapParser() {
+        return properties.getProperty("pardini.soap.parser", "stax");
+    }
+
+    /**
+     * Transporte HTTP do SOAP: "httpclient" (java.net.http com keep-alive, default) ou "urlconnection" (antigo).
+     */
+    public String getPardiniSoapTransport() {
+        return properties.getProperty("pardini.soap.transport", "httpclient");
+    }
+
+    /**
+     * Máximo de conexões mantidas no pool do HttpClient (jdk.httpclient.connectionPoolSize).
+     */
+    public int getPardiniHttpPoolSize() {
+        return Integer.parseInt(properties.getProperty("pardini.http.pool.size", "10"));
+    }
+
+    /**
+     * Tempo que uma conexão ociosa fica no pool (jdk.httpclient.keepalive.timeout).
+     */
+    public int getPardiniHttpKeepAliveSeconds() {
+        return Integer.parseInt(properties.getProperty("pardini.http.keepalive.seconds", "300"));
+    }
+
     /**
      * ✅ Como o XSD do getResultado NÃO traz ano, usamos ano padrão configurável.
      * Default: ano atual.
@@ -141,6 +177,62 @@ public class AppConfig {
         return Integer.parseInt(properties.getProperty("pardini.anoCodPedApoio.fallbackYears", "1"));
     }
 
+    /**
+     * Modo do getResultado que alimenta o mapa:
+     * janela (sempre as últimas pardini.getResultado.window.hours) ou
+     * incremental (do watermark menos a sobreposição até agora).
+     */
+    public String getPardiniGetResultadoModo() {
+        return properties.getProperty("pardini.getResultado.modo", "janela").trim().toLowerCase();
+    }
+
+    /** Sobreposição, no modo incremental, para cobrir resultados liberados com atraso. */
+    public int getPardiniGetResultadoOverlapMinutes() {
+        return Integer.parseInt(properties.getProperty("pardini.getResultado.overlap.minutes", "15"));
+    }
+
+    /** Sonda barata (PDF=0) antes do download completo quando o ano não é conhecido. */
+    public boolean isPardiniAnoSonda() {
+        return Boolean.parseBoolean(properties.getProperty("pardini.ano.sonda", "true"));
+    }
+
+    /**
+     * Distância máxima até um CodPedApoio numérico de ano conhecido para usar
+     * o ano dele como palpite (0 desliga).
+     */
+    public long getPardiniAnoVizinhoDistancia() {
+        return Long.parseLong(properties.getProperty("pardini.ano.vizinho.distancia", "1000"));
+    }
+
+    /** Tamanho de cada fatia do --backfill. */
+    public int getPardiniBackfillSliceHours() {
+        return Integer.parseInt(properties.getProperty("pardini.backfill.slice.hours", "6"));
+    }
+
+    /** Fatias do --backfill buscadas ao mesmo tempo. */
+    public int getPardiniBackfillParallelism() {
+        return Integer.parseInt(properties.getProperty("pardini.backfill.parallelism", "4"));
+    }
+
+    /** Pares CodPedLab/CodPedApoio por lote no upsert do mapa (máx. 1000). */
+    public int getPardiniMapaBatchSize() {
+        return Integer.parseInt(properties.getProperty("pardini.mapa.batch.size", "500"));
+    }
+
+    /** Intervalo mínimo entre chamadas getResultado do mapa dentro dos ciclos. */
+    public int getPardiniMapaRefreshMinSeconds() {
+        return Integer.parseInt(properties.getProperty("pardini.mapa.refresh.min.seconds", "60"));
+    }
+
+    /** Entradas do cache em memória do mapa (0 desliga o cache). */
+    public int getPardiniMapaCacheSize() {
+        return Integer.parseInt(properties.getProperty("pardini.mapa.cache.size", "100000"));
+    }
+
+    public long getPardiniMapaCacheTtlMinutes() {
+        return Long.parseLong(properties.getProperty("pardini.mapa.cache.ttl.minutes", "720"));
+    }
+
     // ===== ORACLE =====
     public String getOracleUrl() {
         return properties.getProperty("oracle.jdbc.url");
@@ -192,11 +284,62 @@ public class AppConfig {
         return properties.getProperty("mv2000.origem.documento", "HERMES PARDINI - HPWS");
     }
 
+    /** IDs de ARQUIVO_DOCUMENTO/ARQUIVO_ATENDIMENTO reservados por vez (sequência ou RERONO_ID_RESERVA). */
+    public int getMv2000IdBlockSize() {
+        return Integer.parseInt(properties.getProperty("mv2000.id.block.size", "20"));
+    }
+
+    /** Pula o anexo quando o mesmo SHA-256 já está no atendimento (RERONO_ANEXO_HASH). */
+    public boolean isMv2000AnexoDedupe() {
+        return Boolean.parseBoolean(properties.getProperty("mv2000.anexo.dedupe", "true"));
+    }
+
+    /** Entradas do índice em memória de anexos por hash. */
+    public int getMv2000AnexoHashCacheSize() {
+        return Integer.parseInt(properties.getProperty("mv2000.anexo.hash.cache.size", "200000"));
+    }
+
     // ===== WORKER/SCHEDULER =====
     public int getSchedulerIntervalMinutes() {
         return Integer.parseInt(properties.getProperty("scheduler.interval.minutes", "5"));
     }
 
+    /** intervalo (Quartz a cada scheduler.interval.minutes) | continuo (laço com pausa adaptativa). */
+    public String getSchedulerModo() {
+        return properties.getProperty("scheduler.modo", "intervalo").trim().toLowerCase();
+    }
+
+    /** Pausa do modo contínuo quando o último ciclo achou pendentes. */
+    public long getSchedulerContinuoSleepMinMs() {
+        return Long.parseLong(properties.getProperty("scheduler.continuo.sleep.min.ms", "1000"));
+    }
+
+    /** Pausa máxima do modo contínuo (ocioso: dobra a cada ciclo vazio até aqui). */
+    public long getSchedulerContinuoSleepMaxMs() {
+        return Long.parseLong(properties.getProperty("scheduler.continuo.sleep.max.ms", "60000"));
+    }
+
+    /**
+     * Cadência do job próprio de atualização do mapa (getResultado).
+     * 0 = o mapa é atualizado dentro de cada ciclo do worker.
+     */
+    public int getSchedulerMapaIntervalMinutes() {
+        return Integer.parseInt(properties.getProperty("scheduler.mapa.interval.minutes", "0"));
+    }
+
+    /** ram (agenda em memória) | jdbc (Quartz em cluster nas tabelas QRTZ_). */
+    public String getSchedulerJobStore() {
+        return properties.getProperty("scheduler.jobstore", "ram").trim().toLowerCase();
+    }
+
+    public String getSchedulerJdbcTablePrefix() {
+        return properties.getProperty("scheduler.jdbc.table.prefix", "DBAMV.QRTZ_");
+    }
+
+    public long getSchedulerClusterCheckinMs() {
+        return Long.parseLong(properties.getProperty("scheduler.cluster.checkin.ms", "20000"));
+    }
+
     public int getWorkerMaxTentativas() {
         return Integer.parseInt(properties.getProperty("worker.max.tentativas", "3"));
     }
@@ -205,10 +348,102 @@ public class AppConfig {
         return Integer.parseInt(properties.getProperty("worker.thread.pool.size", "5"));
     }
 
+    /** CD_PED_LAB pendentes por página do keyset (uma resolução em lote por página). */
     public int getWorkerBatchSize() {
         return Integer.parseInt(properties.getProperty("worker.batch.size", "50"));
     }
 
+    /** Linhas por round trip ao ler uma página de pendentes. */
+    public int getWorkerPendentesFetchSize() {
+        return Integer.parseInt(properties.getProperty("worker.pendentes.fetch.size", String.valueOf(getWorkerBatchSize())));
+    }
+
+    /** mapa (só pendentes já no mapa Pardini, via join) | todos (valida cada um no mapa). */
+    public String getWorkerPendentesModo() {
+        return properties.getProperty("worker.pendentes.modo", "mapa").trim().toLowerCase();
+    }
+
+    /** Backoff de pedidos ainda não liberados no Pardini (RERONO_PENDENTE_BACKOFF). */
+    public boolean isWorkerBackoff() {
+        return Boolean.parseBoolean(properties.getProperty("worker.backoff", "true"));
+    }
+
+    public int getWorkerBackoffBaseMinutes() {
+        return Integer.parseInt(properties.getProperty("worker.backoff.base.minutes", "5"));
+    }
+
+    public int getWorkerBackoffMaxMinutes() {
+        return Integer.parseInt(properties.getProperty("worker.backoff.max.minutes", "720"));
+    }
+
+    /** Dias desde a primeira falha até desistir do pedido (volta só com novo mapeamento). */
+    public int getWorkerBackoffDesistirDias() {
+        return Integer.parseInt(properties.getProperty("worker.backoff.desistir.dias", "30"));
+    }
+
+    /** Leases por CD_PED_LAB (RERONO_LEASE_PEDIDO) para rodar mais de uma instância. */
+    public boolean isWorkerLease() {
+        return Boolean.parseBoolean(properties.getProperty("worker.lease", "false"));
+    }
+
+    public int getWorkerLeaseSeconds() {
+        return Integer.parseInt(properties.getProperty("worker.lease.seconds", "600"));
+    }
+
+    /** Identificador desta instância nos leases (padrão: pid@host). */
+    public String getWorkerNodeId() {
+        String no = properties.getProperty("worker.node.id", "").trim();
+        return no.isEmpty() ? ManagementFactory.getRuntimeMXBean().getName() : no;
+    }
+
+    /** Tempo máximo buscando novas páginas de pendentes em um ciclo. */
+    public long getWorkerCicloOrcamentoSegundos() {
+        return Long.parseLong(properties.getProperty("worker.ciclo.orcamento.segundos", "240"));
+    }
+
+    /** fixed (pool de threads) ou virtual (virtual threads, Java 21+). */
+    public String getWorkerExecutor() {
+        return properties.getProperty("worker.executor", "fixed").trim().toLowerCase();
+    }
+
+    /** Máximo de getResultadoPedido em voo (concorrência do estágio de download). */
+    public int getPardiniMaxConcurrent() {
+        return Integer.parseInt(properties.getProperty("pardini.max.concurrent", "20"));
+    }
+
+    /** Máximo de etapas JDBC simultâneas (resolução + anexo; padrão: tamanho do pool Hikari). */
+    public int getWorkerDbMaxConcurrent() {
+        return Integer.parseInt(properties.getProperty("worker.db.max.concurrent",
+                String.valueOf(getHikariPoolSize())));
+    }
+
+    // ===== PIPELINE DO WORKER (resolução -> download -> anexo) =====
+    public int getWorkerStageResolverThreads() {
+        return Integer.parseInt(properties.getProperty("worker.stage.resolucao.threads",
+                String.valueOf(getWorkerThreadPoolSize())));
+    }
+
+    /** Threads que decodificam as respostas (as chamadas em voo não ocupam thread). */
+    public int getWorkerStageDownloadThreads() {
+        return Integer.parseInt(properties.getProperty("worker.stage.download.threads",
+                String.valueOf(getWorkerThreadPoolSize())));
+    }
+
+    public int getWorkerStageAnexoThreads() {
+        return Integer.parseInt(properties.getProperty("worker.stage.anexo.threads",
+                String.valueOf(getWorkerThreadPoolSize())));
+    }
+
+    /** Itens aguardando em cada estágio além dos em execução. */
+    public int getWorkerStageQueueCapacity() {
+        return Integer.parseInt(properties.getProperty("worker.stage.queue.capacity", "20"));
+    }
+
+    /** Pedidos anexados por transação no MV2000 (1 = um commit por pedido). */
+    public int getWorkerAnexoPedidosPorCommit() {
+        return Integer.parseInt(properties.getProperty("worker.anexo.pedidos.por.commit", "10"));
+    }
+
     public String getProperty(String key) {
         return properties.getProperty(key);
     }
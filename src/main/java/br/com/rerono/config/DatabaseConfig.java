@@ -7,13 +7,19 @@ import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DatabaseConfig {
     
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConfig.class);
     private static DatabaseConfig instance;
     private HikariDataSource dataSource;
+    // tabelas opcionais já verificadas (uma consulta ao dicionário por processo)
+    private final Map<String, Boolean> tabelasOpcionais = new ConcurrentHashMap<>();
     
     private DatabaseConfig() {
         initializeDataSource();
@@ -72,6 +78,42 @@ public class DatabaseConfig {
         return dataSource.getConnection();
     }
     
+    /**
+     * Tabela de um recurso opcional (criada por um dos scripts/). Sem ela o recurso é
+     * desligado com um aviso em vez de falhar com ORA-00942 em cada uso.
+     *
+     * @param tabela   nome qualificado, ex.: DBAMV.RERONO_WATERMARK
+     * @param recurso  configuração que pede a tabela, ex.: "worker.backoff=true (scripts/07)"
+     * @param semTabela o que acontece sem ela, ex.: "seguindo sem backoff"
+     */
+    public boolean tabelaOpcional(String tabela, String recurso, String semTabela) {
+        return tabelasOpcionais.computeIfAbsent(tabela, t -> {
+            try {
+                if (tabelaExiste(t)) return true;
+                logger.warn("{} sem {}; {}", recurso, t, semTabela);
+            } catch (SQLException e) {
+                logger.warn("{}: não foi possível verificar {} ({}); {}", recurso, t, e.getMessage(), semTabela);
+            }
+            return false;
+        });
+    }
+
+    private boolean tabelaExiste(String tabela) throws SQLException {
+        int ponto = tabela.indexOf('.');
+        String sql = "SELECT 1 FROM ALL_TABLES WHERE OWNER = ? AND TABLE_NAME = ?";
+
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, tabela.substring(0, ponto).toUpperCase());
+            ps.setString(2, tabela.substring(ponto + 1).toUpperCase());
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+    
     public DataSource getDataSource() {
         return dataSource;
     }
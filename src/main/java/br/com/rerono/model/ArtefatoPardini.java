@@ -0,0 +1,78 @@
+package br.com.rerono.model;
+
+import br.com.rerono.codec.Base64Handler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Um PDF ou gráfico retornado pelo Pardini, já com SHA-256, tamanho e tipo
+ * calculados na mesma passada da decodificação.
+ * O conteúdo fica em memória (parser legacy) ou em arquivo (parser StAX,
+ * decodificado direto para disco).
+ */
+public class ArtefatoPardini {
+
+    private final byte[] bytes;
+    private final Path arquivo;
+    private final long tamanho;
+    private final String hash;
+    private final String tipo;
+
+    private ArtefatoPardini(byte[] bytes, Path arquivo, long tamanho, String hash, String tipo) {
+        this.bytes = bytes;
+        this.arquivo = arquivo;
+        this.tamanho = tamanho;
+        this.hash = hash;
+        this.tipo = tipo;
+    }
+
+    /**
+     * @param hash SHA-256 já calculado na decodificação; null para calcular aqui (conteúdo
+     *             recebido pronto, ex.: Mv2000Integrator.anexarDocumento(byte[], ...))
+     */
+    public static ArtefatoPardini emMemoria(byte[] bytes, String hash, String tipo) {
+        return new ArtefatoPardini(bytes, null, bytes.length,
+                hash != null ? hash : Base64Handler.calculateSha256(bytes), tipo);
+    }
+
+    public static ArtefatoPardini emArquivo(Path arquivo, long tamanho, String hash, String tipo) {
+        return new ArtefatoPardini(null, arquivo, tamanho, hash, tipo);
+    }
+
+    /** Mesmo artefato, apontando para outro arquivo (ex.: após renomear a extensão). */
+    public ArtefatoPardini comArquivo(Path novoArquivo) {
+        return new ArtefatoPardini(null, novoArquivo, tamanho, hash, tipo);
+    }
+
+    public long getTamanho() { return tamanho; }
+    public String getHash() { return hash; }
+
+    /** PDF, PNG, JPG ou BIN (detectado pela assinatura durante a decodificação). */
+    public String getTipo() { return tipo; }
+
+    /** Arquivo onde o conteúdo está (null quando está só em memória). */
+    public Path getArquivo() { return arquivo; }
+
+    public boolean isEmArquivo() { return arquivo != null; }
+
+    /**
+     * Conteúdo completo. Para artefatos em arquivo, lê do disco a cada chamada.
+     */
+    public byte[] getBytes() {
+        if (bytes != null) return bytes;
+        try {
+            return Files.readAllBytes(arquivo);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao ler artefato " + arquivo, e);
+        }
+    }
+
+    public InputStream abrirStream() throws IOException {
+        return bytes != null ? new ByteArrayInputStream(bytes) : Files.newInputStream(arquivo);
+    }
+}
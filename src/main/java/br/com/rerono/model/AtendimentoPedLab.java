@@ -0,0 +1,46 @@
+package br.com.rerono.model;
+
+/**
+ * Atendimento/paciente de um CD_PED_LAB, resolvidos em lote (ITPED_LAB + ATENDIME).
+ */
+public class AtendimentoPedLab {
+
+    private final String cdPedLab;       // ITPED_LAB.CD_PED_LAB
+    private final Long cdAtendimento;    // maior ITPED_LAB.CD_ATENDIMENTO do pedido
+    private final Long cdPaciente;       // ATENDIME.CD_PACIENTE
+    private final boolean atendimentoExiste;
+
+    public AtendimentoPedLab(String cdPedLab, Long cdAtendimento, Long cdPaciente, boolean atendimentoExiste) {
+        this.cdPedLab = cdPedLab;
+        this.cdAtendimento = cdAtendimento;
+        this.cdPaciente = cdPaciente;
+        this.atendimentoExiste = atendimentoExiste;
+    }
+
+    public String getCdPedLab() {
+        return cdPedLab;
+    }
+
+    public Long getCdAtendimento() {
+        return cdAtendimento;
+    }
+
+    public Long getCdPaciente() {
+        return cdPaciente;
+    }
+
+    /** false quando o CD_ATENDIMENTO da ITPED_LAB não está na ATENDIME. */
+    public boolean isAtendimentoExiste() {
+        return atendimentoExiste;
+    }
+
+    @Override
+    public String toString() {
+        return "AtendimentoPedLab{" +
+                "cdPedLab='" + cdPedLab + '\'' +
+                ", cdAtendimento=" + cdAtendimento +
+                ", cdPaciente=" + cdPaciente +
+                ", atendimentoExiste=" + atendimentoExiste +
+                '}';
+    }
+}
@@ -0,0 +1,97 @@
+package br.com.rerono.model;
+
+/**
+ * Um documento a anexar no MV2000 (ARQUIVO_DOCUMENTO + ARQUIVO_ATENDIMENTO).
+ * O conteúdo é o próprio artefato (em arquivo ou em memória), lido em streaming
+ * no insert do BLOB. Após o anexo, traz o CD_ARQUIVO_DOCUMENTO gerado.
+ */
+public class DocumentoAnexo {
+
+    private final ArtefatoPardini conteudo;
+    private final String extensao;
+    private final Long cdAtendimento;
+    private final Long cdPaciente;
+    private final String descricao;
+    private final String nomeArquivo;
+    private final int cdTipoDocumento;
+
+    private Long cdArquivoDocumento;
+    private boolean jaAnexado;
+
+    public DocumentoAnexo(byte[] conteudo, String extensao, Long cdAtendimento, Long cdPaciente,
+                          String descricao, String nomeArquivo, int cdTipoDocumento) {
+        this(conteudo != null ? ArtefatoPardini.emMemoria(conteudo, null, extensao) : null,
+                extensao, cdAtendimento, cdPaciente, descricao, nomeArquivo, cdTipoDocumento);
+    }
+
+    public DocumentoAnexo(ArtefatoPardini conteudo, String extensao, Long cdAtendimento, Long cdPaciente,
+                          String descricao, String nomeArquivo, int cdTipoDocumento) {
+        this.conteudo = conteudo;
+        this.extensao = extensao;
+        this.cdAtendimento = cdAtendimento;
+        this.cdPaciente = cdPaciente;
+        this.descricao = descricao;
+        this.nomeArquivo = nomeArquivo;
+        this.cdTipoDocumento = cdTipoDocumento;
+    }
+
+    public ArtefatoPardini getConteudo() {
+        return conteudo;
+    }
+
+    public long getTamanho() {
+        return conteudo != null ? conteudo.getTamanho() : 0;
+    }
+
+    public String getExtensao() {
+        return extensao;
+    }
+
+    public Long getCdAtendimento() {
+        return cdAtendimento;
+    }
+
+    public Long getCdPaciente() {
+        return cdPaciente;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    public String getNomeArquivo() {
+        return nomeArquivo;
+    }
+
+    public int getCdTipoDocumento() {
+        return cdTipoDocumento;
+    }
+
+    public Long getCdArquivoDocumento() {
+        return cdArquivoDocumento;
+    }
+
+    public void setCdArquivoDocumento(Long cdArquivoDocumento) {
+        this.cdArquivoDocumento = cdArquivoDocumento;
+    }
+
+    /** true quando o mesmo conteúdo já estava no atendimento e o insert foi pulado. */
+    public boolean isJaAnexado() {
+        return jaAnexado;
+    }
+
+    public void setJaAnexado(boolean jaAnexado) {
+        this.jaAnexado = jaAnexado;
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentoAnexo{" +
+                "nomeArquivo='" + nomeArquivo + '\'' +
+                ", extensao='" + extensao + '\'' +
+                ", cdAtendimento=" + cdAtendimento +
+                ", cdArquivoDocumento=" + cdArquivoDocumento +
+                ", jaAnexado=" + jaAnexado +
+                '}';
+    }
+}
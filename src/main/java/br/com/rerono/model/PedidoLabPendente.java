@@ -5,6 +5,10 @@ public class PedidoLabPendente {
     private String cdPedLab;     // ITPED_LAB.CD_PED_LAB
     private String snAssinado;   // ITPED_LAB.SN_ASSINADO
 
+    // preenchidos quando o pendente vem do join com o mapa Pardini (senão null)
+    private String codPedApoio;              // RERONO_PARDINI_MAPA.COD_PED_APOIO
+    private AtendimentoPedLab atendimento;   // ITPED_LAB + ATENDIME
+
     public PedidoLabPendente() {}
 
     public PedidoLabPendente(String cdPedLab, String snAssinado) {
@@ -28,11 +32,29 @@ public class PedidoLabPendente {
         this.snAssinado = snAssinado;
     }
 
+    public String getCodPedApoio() {
+        return codPedApoio;
+    }
+
+    public void setCodPedApoio(String codPedApoio) {
+        this.codPedApoio = codPedApoio;
+    }
+
+    public AtendimentoPedLab getAtendimento() {
+        return atendimento;
+    }
+
+    public void setAtendimento(AtendimentoPedLab atendimento) {
+        this.atendimento = atendimento;
+    }
+
     @Override
     public String toString() {
         return "PedidoLabPendente{" +
                 "cdPedLab='" + cdPedLab + '\'' +
                 ", snAssinado='" + snAssinado + '\'' +
+                ", codPedApoio='" + codPedApoio + '\'' +
+                ", atendimento=" + atendimento +
                 '}';
     }
 }
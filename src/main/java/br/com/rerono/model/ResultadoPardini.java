@@ -9,11 +9,8 @@ public class ResultadoPardini {
     private Integer anoCodPedApoio;
 
     // múltiplos PDFs/gráficos (PDF=2 pode retornar vários)
-    private final List<byte[]> pdfs = new ArrayList<>();
-    private final List<String> hashesPdf = new ArrayList<>();
-
-    private final List<byte[]> graficos = new ArrayList<>();
-    private final List<String> hashesGraficos = new ArrayList<>();
+    private final List<ArtefatoPardini> pdfs = new ArrayList<>();
+    private final List<ArtefatoPardini> graficos = new ArrayList<>();
 
     private String xmlOriginal;
     private boolean sucesso;
@@ -46,45 +43,49 @@ public class ResultadoPardini {
 
     // ======= PDFs =======
 
-    public void addPdf(byte[] bytes, String hash) {
-        if (bytes == null || bytes.length == 0) return;
-        pdfs.add(bytes);
-        hashesPdf.add(hash);
+    public void addPdf(ArtefatoPardini artefato) {
+        if (artefato == null || artefato.getTamanho() == 0) return;
+        pdfs.add(artefato);
     }
 
-    public List<byte[]> getPdfs() { return pdfs; }
+    public List<byte[]> getPdfs() { return pdfs.stream().map(ArtefatoPardini::getBytes).toList(); }
+
+    public List<ArtefatoPardini> getArtefatosPdf() { return pdfs; }
 
     public int getTotalPdfs() { return pdfs.size(); }
 
     public long getTamanhoTotalPdfs() {
         long sum = 0;
-        for (byte[] b : pdfs) sum += (b == null ? 0 : b.length);
+        for (ArtefatoPardini a : pdfs) sum += a.getTamanho();
         return sum;
     }
 
     public boolean temPdf() { return !pdfs.isEmpty(); }
 
     // “primeiro PDF” (caso precise compatibilidade em outros pontos)
-    public byte[] getPdfBytes() { return pdfs.isEmpty() ? null : pdfs.get(0); }
-    public String getHashPdf() { return hashesPdf.isEmpty() ? null : hashesPdf.get(0); }
+    public ArtefatoPardini getPdf() { return pdfs.isEmpty() ? null : pdfs.get(0); }
+    public byte[] getPdfBytes() { return pdfs.isEmpty() ? null : pdfs.get(0).getBytes(); }
+    public String getHashPdf() { return pdfs.isEmpty() ? null : pdfs.get(0).getHash(); }
 
     // ======= Gráficos =======
 
-    public void addGrafico(byte[] bytes, String hash) {
-        if (bytes == null || bytes.length == 0) return;
-        graficos.add(bytes);
-        hashesGraficos.add(hash);
+    public void addGrafico(ArtefatoPardini artefato) {
+        if (artefato == null || artefato.getTamanho() == 0) return;
+        graficos.add(artefato);
     }
 
-    public List<byte[]> getGraficos() { return graficos; }
+    public List<byte[]> getGraficos() { return graficos.stream().map(ArtefatoPardini::getBytes).toList(); }
+
+    public List<ArtefatoPardini> getArtefatosGrafico() { return graficos; }
 
     public int getTotalGraficos() { return graficos.size(); }
 
     public boolean temGrafico() { return !graficos.isEmpty(); }
 
-    public byte[] getGraficoBytes() { return graficos.isEmpty() ? null : graficos.get(0); }
-    public String getHashGrafico() { return hashesGraficos.isEmpty() ? null : hashesGraficos.get(0); }
+    public ArtefatoPardini getGrafico() { return graficos.isEmpty() ? null : graficos.get(0); }
+    public byte[] getGraficoBytes() { return graficos.isEmpty() ? null : graficos.get(0).getBytes(); }
+    public String getHashGrafico() { return graficos.isEmpty() ? null : graficos.get(0).getHash(); }
 
-    public int getTamanhoPdf() { return getPdfBytes() != null ? getPdfBytes().length : 0; }
-    public int getTamanhoGrafico() { return getGraficoBytes() != null ? getGraficoBytes().length : 0; }
+    public int getTamanhoPdf() { return pdfs.isEmpty() ? 0 : (int) pdfs.get(0).getTamanho(); }
+    public int getTamanhoGrafico() { return graficos.isEmpty() ? 0 : (int) graficos.get(0).getTamanho(); }
 }
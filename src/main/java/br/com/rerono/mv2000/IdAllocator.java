@@ -0,0 +1,189 @@
+package br.com.rerono.mv2000;
+
+import br.com.rerono.config.AppConfig;
+import br.com.rerono.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Entrega IDs de uma tabela do MV2000.
+ *
+ * Com sequência: blocos pré-alocados; um único SELECT SEQ.NEXTVAL ... CONNECT BY LEVEL <= N
+ * traz o bloco todo, na conexão de quem pediu (NEXTVAL não depende da transação), sem
+ * disputar o pool com os anexos em andamento.
+ * Sem sequência: o bloco é reservado na RERONO_ID_RESERVA (script 05) em uma transação
+ * própria e curta (PROXIMO_ID += N e commit), que não segura a linha durante a gravação
+ * dos BLOBs. O MAX da coluna só é lido quando a linha de reserva é criada; a partir daí
+ * os IDs da tabela vêm apenas da reserva.
+ *
+ * IDs não usados (ex.: ao encerrar o processo) são perdidos, como no cache da sequência.
+ * A retirada é lock-free; só a reposição do bloco é sincronizada.
+ */
+public final class IdAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdAllocator.class);
+
+    private static final String TABELA_RESERVA = "DBAMV.RERONO_ID_RESERVA";
+
+    private static final Map<String, IdAllocator> INSTANCIAS = new ConcurrentHashMap<>();
+
+    private final String sequencia;
+    private final String tabela;
+    private final String coluna;
+    private final int tamanhoBloco;
+
+    private final ConcurrentLinkedQueue<Long> livres = new ConcurrentLinkedQueue<>();
+    private final Object reposicao = new Object();
+
+    private volatile boolean usarSequencia = true;
+
+    private IdAllocator(String sequencia, String tabela, String coluna, int tamanhoBloco) {
+        this.sequencia = sequencia;
+        this.tabela = tabela;
+        this.coluna = coluna;
+        this.tamanhoBloco = Math.max(1, tamanhoBloco);
+    }
+
+    /**
+     * Um alocador por tabela no processo, para que todos os anexos dividam o mesmo bloco.
+     */
+    public static IdAllocator getInstance(String sequencia, String tabela, String coluna) {
+        return INSTANCIAS.computeIfAbsent(tabela,
+                t -> new IdAllocator(sequencia, t, coluna, AppConfig.getInstance().getMv2000IdBlockSize()));
+    }
+
+    /**
+     * @param conn conexão do anexo que vai usar o ID (reposição por sequência)
+     */
+    public long proximo(Connection conn) throws SQLException {
+        Long id = livres.poll();
+        while (id == null) {
+            synchronized (reposicao) {
+                // outra thread pode ter reposto enquanto esperávamos
+                if (livres.isEmpty()) {
+                    repor(conn);
+                }
+            }
+            id = livres.poll();
+        }
+        return id;
+    }
+
+    private void repor(Connection conn) throws SQLException {
+        if (usarSequencia) {
+            try {
+                reservarDaSequencia(conn);
+                return;
+            } catch (SQLException e) {
+                // ORA-02289: sequência não existe. Qualquer outro erro sobe.
+                if (e.getErrorCode() != 2289) throw e;
+                usarSequencia = false;
+                logger.warn("Sequência {} não encontrada; IDs de {} via reserva em bloco ({})",
+                        sequencia, tabela, TABELA_RESERVA);
+            }
+        }
+        reservarBloco();
+    }
+
+    private void reservarDaSequencia(Connection conn) throws SQLException {
+        String sql = "SELECT " + sequencia + ".NEXTVAL FROM DUAL CONNECT BY LEVEL <= ?";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, tamanhoBloco);
+            ps.setFetchSize(tamanhoBloco);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    livres.add(rs.getLong(1));
+                }
+            }
+        }
+
+        logger.debug("Bloco de {} IDs de {} reservado da sequência {}", tamanhoBloco, tabela, sequencia);
+    }
+
+    /**
+     * Reserva [PROXIMO_ID, PROXIMO_ID + N) em uma transação própria: a linha de controle
+     * fica travada só entre o SELECT FOR UPDATE e o commit, não durante o anexo.
+     */
+    private void reservarBloco() throws SQLException {
+        Connection conn = null;
+        long inicio;
+        try {
+            conn = DatabaseConfig.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            Long proximo = travarLinhaReserva(conn);
+            if (proximo == null) {
+                criarLinhaReserva(conn);
+                proximo = travarLinhaReserva(conn);
+                if (proximo == null) {
+                    throw new SQLException("Linha de reserva ausente para " + tabela);
+                }
+            }
+            inicio = proximo;
+
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE " + TABELA_RESERVA + " SET PROXIMO_ID = ?, DT_ATUALIZACAO = SYSTIMESTAMP WHERE TABELA = ?")) {
+                ps.setLong(1, inicio + tamanhoBloco);
+                ps.setString(2, tabela);
+                ps.executeUpdate();
+            }
+
+            conn.commit();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                try { conn.rollback(); } catch (SQLException ex) { logger.error("Erro no rollback", ex); }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try { conn.setAutoCommit(true); conn.close(); } catch (SQLException e) { logger.error("Erro ao fechar conexão", e); }
+            }
+        }
+
+        for (long id = inicio; id < inicio + tamanhoBloco; id++) {
+            livres.add(id);
+        }
+        logger.debug("Bloco de {} IDs de {} reservado em {}: {}..{}",
+                tamanhoBloco, tabela, TABELA_RESERVA, inicio, inicio + tamanhoBloco - 1);
+    }
+
+    /**
+     * @return PROXIMO_ID com a linha travada, ou null se a tabela ainda não tem linha de reserva
+     */
+    private Long travarLinhaReserva(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT PROXIMO_ID FROM " + TABELA_RESERVA + " WHERE TABELA = ? FOR UPDATE")) {
+            ps.setString(1, tabela);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Primeira reserva da tabela: a linha parte de MAX + 1, para não reutilizar IDs gravados
+     * antes da integração. É a única leitura do MAX. Se outro nó criar a linha antes, a PK
+     * dele vence e seguimos para o FOR UPDATE normalmente.
+     */
+    private void criarLinhaReserva(Connection conn) throws SQLException {
+        String sql = "INSERT INTO " + TABELA_RESERVA + " (TABELA, PROXIMO_ID) " +
+                "SELECT ?, NVL(MAX(" + coluna + "), 0) + 1 FROM " + tabela;
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, tabela);
+            ps.executeUpdate();
+            logger.info("Linha de reserva de IDs criada para {}", tabela);
+        } catch (SQLIntegrityConstraintViolationException e) {
+            logger.debug("Linha de reserva de {} criada por outra sessão", tabela);
+        }
+    }
+}
@@ -2,22 +2,58 @@ package br.com.rerono.mv2000;
 
 import br.com.rerono.config.AppConfig;
 import br.com.rerono.config.DatabaseConfig;
+import br.com.rerono.model.AtendimentoPedLab;
+import br.com.rerono.model.DocumentoAnexo;
+import br.com.rerono.persistence.AnexoHashIndex;
+import br.com.rerono.persistence.AnexoHashRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 
 public class Mv2000Integrator {
 
     private static final Logger logger = LoggerFactory.getLogger(Mv2000Integrator.class);
     private static final Logger auditLogger = LoggerFactory.getLogger("AUDIT");
 
+    /** Limite do Oracle para expressões em uma lista IN (ORA-01795). */
+    private static final int MAX_IN_LIST = 1000;
+
     private final DatabaseConfig dbConfig;
     private final AppConfig appConfig;
+    private final IdAllocator idsArquivoDocumento;
+    private final IdAllocator idsArquivoAtendimento;
+    private final AnexoHashRepository anexoHashRepository;
+    private final boolean dedupe;
 
     public Mv2000Integrator() {
         this.dbConfig = DatabaseConfig.getInstance();
         this.appConfig = AppConfig.getInstance();
+        this.idsArquivoDocumento = IdAllocator.getInstance(
+                "SEQ_ARQUIVO_DOCUMENTO", "ARQUIVO_DOCUMENTO", "CD_ARQUIVO_DOCUMENTO");
+        this.idsArquivoAtendimento = IdAllocator.getInstance(
+                "SEQ_ARQUIVO_ATENDIMENTO", "ARQUIVO_ATENDIMENTO", "CD_ARQUIVO_ATENDIMENTO");
+        this.anexoHashRepository = new AnexoHashRepository();
+        this.dedupe = appConfig.isMv2000AnexoDedupe()
+                && dbConfig.tabelaOpcional(AnexoHashRepository.TABELA,
+                        "mv2000.anexo.dedupe=true (scripts/06)", "anexando sem dedupe");
+    }
+
+    /**
+     * Startup: carrega o índice de anexos por hash (sem ele, cada anexo consulta o banco).
+     */
+    public void carregarIndiceAnexos() throws SQLException {
+        if (dedupe) {
+            anexoHashRepository.carregarIndice();
+        }
     }
 
     public Long anexarDocumento(byte[] conteudo,
@@ -28,32 +64,76 @@ public class Mv2000Integrator {
                                 String nomeArquivo,
                                 int cdTipoDocumento) throws SQLException {
 
-        if (conteudo == null || conteudo.length == 0) {
-            throw new IllegalArgumentException("Conteúdo do documento não pode ser vazio");
+        DocumentoAnexo doc = new DocumentoAnexo(conteudo, extensao, cdAtendimento, cdPaciente,
+                descricao, nomeArquivo, cdTipoDocumento);
+        anexarDocumentos(List.of(doc));
+        return doc.getCdArquivoDocumento();
+    }
+
+    /**
+     * Anexa vários documentos (de um ou mais pedidos) em uma única transação:
+     * os BLOBs da ARQUIVO_DOCUMENTO reutilizam o mesmo statement e as linhas da
+     * ARQUIVO_ATENDIMENTO vão em um executeBatch. Tudo ou nada: qualquer erro
+     * desfaz o lote inteiro. Cada documento volta com o CD_ARQUIVO_DOCUMENTO gerado.
+     *
+     * Documento cujo SHA-256 já está anexado ao mesmo atendimento não é gravado de novo:
+     * volta marcado como jaAnexado, com o CD_ARQUIVO_DOCUMENTO existente. O índice em
+     * memória filtra antes da transação; dentro dela, a PK da RERONO_ANEXO_HASH pega o
+     * que outro nó anexou nesse meio tempo.
+     */
+    public void anexarDocumentos(List<DocumentoAnexo> todos) throws SQLException {
+        if (todos.isEmpty()) return;
+
+        for (DocumentoAnexo doc : todos) {
+            if (doc.getTamanho() == 0) {
+                throw new IllegalArgumentException("Conteúdo do documento não pode ser vazio: " + doc.getNomeArquivo());
+            }
         }
 
+        List<DocumentoAnexo> naTransacao = dedupe ? descartarJaAnexados(todos) : todos;
+        if (naTransacao.isEmpty()) return;
+
+        List<DocumentoAnexo> documentos = naTransacao;
         Connection conn = null;
-        Long cdArquivoDocumento = null;
 
         try {
             conn = dbConfig.getConnection();
             conn.setAutoCommit(false);
 
-            cdArquivoDocumento = inserirArquivoDocumento(conn, conteudo, extensao, nomeArquivo);
+            if (dedupe) {
+                documentos = registrarHashes(conn, naTransacao);
+            }
+
+            if (!documentos.isEmpty()) {
+                inserirArquivosDocumento(conn, documentos);
 
-            inserirArquivoAtendimento(conn, cdArquivoDocumento, cdAtendimento, cdPaciente, descricao, cdTipoDocumento);
+                inserirArquivosAtendimento(conn, documentos);
+            }
 
             conn.commit();
 
-            auditLogger.info("ANEXAR|{}|{}|{}|{}|{} bytes|{}|TPDOC={}",
-                    cdArquivoDocumento, cdAtendimento, cdPaciente, extensao, conteudo.length, nomeArquivo, cdTipoDocumento);
+            if (dedupe) {
+                anexoHashRepository.publicarNoIndice(documentos);
+            }
 
-            logger.info("Documento anexado: CD_ARQUIVO_DOCUMENTO={}, Atendimento={}, {} bytes",
-                    cdArquivoDocumento, cdAtendimento, conteudo.length);
+            for (DocumentoAnexo doc : documentos) {
+                auditLogger.info("ANEXAR|{}|{}|{}|{}|{} bytes|{}|TPDOC={}",
+                        doc.getCdArquivoDocumento(), doc.getCdAtendimento(), doc.getCdPaciente(), doc.getExtensao(),
+                        doc.getTamanho(), doc.getNomeArquivo(), doc.getCdTipoDocumento());
 
-            return cdArquivoDocumento;
+                logger.info("Documento anexado: CD_ARQUIVO_DOCUMENTO={}, Atendimento={}, {} bytes",
+                        doc.getCdArquivoDocumento(), doc.getCdAtendimento(), doc.getTamanho());
+            }
+
+            if (documentos.size() > 1) {
+                logger.info("{} documentos anexados em um commit", documentos.size());
+            }
 
         } catch (SQLException e) {
+            for (DocumentoAnexo doc : naTransacao) {
+                doc.setCdArquivoDocumento(null);
+                doc.setJaAnexado(false);
+            }
             if (conn != null) {
                 try {
                     conn.rollback();
@@ -75,11 +155,59 @@ public class Mv2000Integrator {
         }
     }
 
-    private Long inserirArquivoDocumento(Connection conn, byte[] conteudo,
-                                        String extensao, String nomeArquivo) throws SQLException {
+    private List<DocumentoAnexo> descartarJaAnexados(List<DocumentoAnexo> documentos) throws SQLException {
+        Map<String, Long> anexados = anexoHashRepository.buscarAnexados(documentos);
+        if (anexados.isEmpty()) return documentos;
+
+        List<DocumentoAnexo> novos = new ArrayList<>(documentos.size());
+        for (DocumentoAnexo doc : documentos) {
+            String hash = doc.getConteudo().getHash();
+            if (hash == null) {
+                // só conteúdo vazio chega aqui sem hash
+                logger.warn("Documento {} sem hash (conteúdo vazio); anexando sem dedupe", doc.getNomeArquivo());
+            }
+            Long existente = hash != null ? anexados.get(AnexoHashIndex.chave(hash, doc.getCdAtendimento())) : null;
+
+            if (existente == null) {
+                novos.add(doc);
+                continue;
+            }
 
-        Long proximoId = obterProximoIdArquivoDocumento(conn);
+            marcarJaAnexado(doc, existente);
+        }
+        return novos;
+    }
 
+    /**
+     * Reserva o CD_ARQUIVO_DOCUMENTO e registra o hash de cada documento na transação;
+     * devolve só os que ainda não estavam anexados (ver AnexoHashRepository#registrarOuBuscar).
+     */
+    private List<DocumentoAnexo> registrarHashes(Connection conn, List<DocumentoAnexo> documentos) throws SQLException {
+        List<DocumentoAnexo> novos = new ArrayList<>(documentos.size());
+        for (DocumentoAnexo doc : documentos) {
+            doc.setCdArquivoDocumento(idsArquivoDocumento.proximo(conn));
+
+            Long existente = anexoHashRepository.registrarOuBuscar(conn, doc);
+            if (existente == null) {
+                novos.add(doc);
+            } else {
+                marcarJaAnexado(doc, existente);
+            }
+        }
+        return novos;
+    }
+
+    private void marcarJaAnexado(DocumentoAnexo doc, Long existente) {
+        doc.setCdArquivoDocumento(existente);
+        doc.setJaAnexado(true);
+
+        auditLogger.info("JA_ANEXADO|{}|{}|{}|{}|HASH={}",
+                existente, doc.getCdAtendimento(), doc.getCdPaciente(), doc.getNomeArquivo(), doc.getConteudo().getHash());
+        logger.info("Documento já anexado (mesmo SHA-256): CD_ARQUIVO_DOCUMENTO={}, Atendimento={}, {}",
+                existente, doc.getCdAtendimento(), doc.getNomeArquivo());
+    }
+
+    private void inserirArquivosDocumento(Connection conn, List<DocumentoAnexo> documentos) throws SQLException {
         String sql = """
             INSERT INTO ARQUIVO_DOCUMENTO (
                 CD_ARQUIVO_DOCUMENTO,
@@ -92,47 +220,35 @@ public class Mv2000Integrator {
             ) VALUES (?, ?, ?, ?, ?, SYSDATE, ?)
             """;
 
+        // um BLOB por execução (sem batch), mas com o mesmo cursor para o lote todo.
+        // O conteúdo vai em streaming (arquivo -> driver), sem montar o byte[] do laudo no heap.
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (DocumentoAnexo doc : documentos) {
+                // com dedupe o ID já foi reservado junto com o registro do hash
+                long proximoId = doc.getCdArquivoDocumento() != null
+                        ? doc.getCdArquivoDocumento()
+                        : idsArquivoDocumento.proximo(conn);
+
+                try (InputStream conteudo = doc.getConteudo().abrirStream()) {
+                    ps.setLong(1, proximoId);
+                    ps.setBinaryStream(2, conteudo, doc.getTamanho());
+                    ps.setString(3, doc.getExtensao().toUpperCase());
+                    ps.setString(4, appConfig.getMv2000UsuarioIntegracao());
+                    ps.setString(5, appConfig.getMv2000OrigemDocumento());
+                    ps.setString(6, doc.getNomeArquivo());
+
+                    ps.executeUpdate();
+                } catch (IOException e) {
+                    throw new SQLException("Falha ao ler conteúdo de " + doc.getNomeArquivo() + ": " + e.getMessage(), e);
+                }
+                doc.setCdArquivoDocumento(proximoId);
 
-            ps.setLong(1, proximoId);
-            ps.setBytes(2, conteudo);
-            ps.setString(3, extensao.toUpperCase());
-            ps.setString(4, appConfig.getMv2000UsuarioIntegracao());
-            ps.setString(5, appConfig.getMv2000OrigemDocumento());
-            ps.setString(6, nomeArquivo);
-
-            ps.executeUpdate();
-
-            logger.debug("Inserido ARQUIVO_DOCUMENTO: ID={}, Extensão={}", proximoId, extensao);
-            return proximoId;
-        }
-    }
-
-    private Long obterProximoIdArquivoDocumento(Connection conn) throws SQLException {
-        try (Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery("SELECT SEQ_ARQUIVO_DOCUMENTO.NEXTVAL FROM DUAL")) {
-            if (rs.next()) return rs.getLong(1);
-        } catch (SQLException e) {
-            logger.debug("Sequência não encontrada, usando MAX+1");
-        }
-
-        try (Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery("SELECT NVL(MAX(CD_ARQUIVO_DOCUMENTO), 0) + 1 FROM ARQUIVO_DOCUMENTO")) {
-            if (rs.next()) return rs.getLong(1);
+                logger.debug("Inserido ARQUIVO_DOCUMENTO: ID={}, Extensão={}", proximoId, doc.getExtensao());
+            }
         }
-
-        throw new SQLException("Não foi possível obter ID para ARQUIVO_DOCUMENTO");
     }
 
-    private void inserirArquivoAtendimento(Connection conn,
-                                          Long cdArquivoDocumento,
-                                          Long cdAtendimento,
-                                          Long cdPaciente,
-                                          String descricao,
-                                          int cdTipoDocumento) throws SQLException {
-
-        Long proximoId = obterProximoIdArquivoAtendimento(conn);
-
+    private void inserirArquivosAtendimento(Connection conn, List<DocumentoAnexo> documentos) throws SQLException {
         String sql = """
             INSERT INTO ARQUIVO_ATENDIMENTO (
                 CD_ARQUIVO_ATENDIMENTO,
@@ -147,39 +263,28 @@ public class Mv2000Integrator {
             """;
 
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (DocumentoAnexo doc : documentos) {
+                long proximoId = idsArquivoAtendimento.proximo(conn);
 
-            ps.setLong(1, proximoId);
-            ps.setLong(2, cdArquivoDocumento);
-            ps.setLong(3, cdAtendimento);
+                ps.setLong(1, proximoId);
+                ps.setLong(2, doc.getCdArquivoDocumento());
+                ps.setLong(3, doc.getCdAtendimento());
 
-            if (cdPaciente != null) ps.setLong(4, cdPaciente);
-            else ps.setNull(4, Types.NUMERIC);
+                if (doc.getCdPaciente() != null) ps.setLong(4, doc.getCdPaciente());
+                else ps.setNull(4, Types.NUMERIC);
 
-            ps.setInt(5, cdTipoDocumento);
-            ps.setString(6, appConfig.getMv2000UsuarioIntegracao());
-            ps.setString(7, descricao);
+                ps.setInt(5, doc.getCdTipoDocumento());
+                ps.setString(6, appConfig.getMv2000UsuarioIntegracao());
+                ps.setString(7, doc.getDescricao());
 
-            ps.executeUpdate();
+                ps.addBatch();
 
-            logger.debug("Inserido ARQUIVO_ATENDIMENTO: ID={}, Atendimento={}, TPDOC={}",
-                    proximoId, cdAtendimento, cdTipoDocumento);
-        }
-    }
-
-    private Long obterProximoIdArquivoAtendimento(Connection conn) throws SQLException {
-        try (Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery("SELECT SEQ_ARQUIVO_ATENDIMENTO.NEXTVAL FROM DUAL")) {
-            if (rs.next()) return rs.getLong(1);
-        } catch (SQLException e) {
-            logger.debug("Sequência ARQUIVO_ATENDIMENTO não encontrada, usando MAX+1");
-        }
+                logger.debug("ARQUIVO_ATENDIMENTO no lote: ID={}, Atendimento={}, TPDOC={}",
+                        proximoId, doc.getCdAtendimento(), doc.getCdTipoDocumento());
+            }
 
-        try (Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery("SELECT NVL(MAX(CD_ARQUIVO_ATENDIMENTO), 0) + 1 FROM ARQUIVO_ATENDIMENTO")) {
-            if (rs.next()) return rs.getLong(1);
+            ps.executeBatch();
         }
-
-        throw new SQLException("Não foi possível obter ID para ARQUIVO_ATENDIMENTO");
     }
 
     public boolean atendimentoExiste(Long cdAtendimento) throws SQLException {
@@ -243,4 +348,69 @@ public class Mv2000Integrator {
 
         return null;
     }
+
+    /**
+     * Resolve atendimento e paciente de vários CD_PED_LAB de uma vez: uma consulta
+     * ITPED_LAB + ATENDIME por bloco de até 1000 chaves, no lugar das três consultas
+     * por pedido (obterAtendimentoPorCdPedLab, atendimentoExiste, obterPacienteDoAtendimento).
+     *
+     * Vale o mesmo critério da busca individual: o maior CD_ATENDIMENTO do pedido.
+     * CD_PED_LAB sem atendimento na ITPED_LAB não aparece no mapa retornado.
+     */
+    public Map<String, AtendimentoPedLab> resolverAtendimentos(Collection<String> cdPedLabs) throws SQLException {
+        List<String> chaves = new ArrayList<>();
+        for (String c : new LinkedHashSet<>(cdPedLabs)) {
+            if (c != null && !c.trim().isEmpty()) chaves.add(c.trim());
+        }
+
+        Map<String, AtendimentoPedLab> out = new HashMap<>();
+        if (chaves.isEmpty()) return out;
+
+        try (Connection conn = dbConfig.getConnection()) {
+            for (int i = 0; i < chaves.size(); i += MAX_IN_LIST) {
+                resolverBloco(conn, chaves.subList(i, Math.min(i + MAX_IN_LIST, chaves.size())), out);
+            }
+        }
+
+        logger.debug("Atendimentos resolvidos em lote: {} de {} CD_PED_LAB", out.size(), chaves.size());
+        return out;
+    }
+
+    private void resolverBloco(Connection conn, List<String> bloco, Map<String, AtendimentoPedLab> out) throws SQLException {
+        StringBuilder sql = new StringBuilder("""
+            SELECT I.CD_PED_LAB, I.CD_ATENDIMENTO, A.CD_ATENDIMENTO AS CD_ATENDIMENTO_MV, A.CD_PACIENTE
+            FROM (SELECT CD_PED_LAB, MAX(CD_ATENDIMENTO) AS CD_ATENDIMENTO
+                  FROM ITPED_LAB
+                  WHERE CD_PED_LAB IN (""");
+        for (int i = 0; i < bloco.size(); i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        sql.append("""
+            )
+                  GROUP BY CD_PED_LAB) I
+            LEFT JOIN ATENDIME A ON A.CD_ATENDIMENTO = I.CD_ATENDIMENTO
+            """);
+
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < bloco.size(); i++) {
+                ps.setString(i + 1, bloco.get(i));
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long cdAtendimento = rs.getLong("CD_ATENDIMENTO");
+                    if (rs.wasNull()) continue;
+
+                    rs.getLong("CD_ATENDIMENTO_MV");
+                    boolean existe = !rs.wasNull();
+
+                    long cdPaciente = rs.getLong("CD_PACIENTE");
+                    Long paciente = rs.wasNull() ? null : cdPaciente;
+
+                    String cdPedLab = rs.getString("CD_PED_LAB");
+                    out.put(cdPedLab, new AtendimentoPedLab(cdPedLab, cdAtendimento, paciente, existe));
+                }
+            }
+        }
+    }
 }
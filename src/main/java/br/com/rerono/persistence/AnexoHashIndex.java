@@ -0,0 +1,71 @@
+package br.com.rerono.persistence;
+
+import br.com.rerono.config.AppConfig;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice em memória de RERONO_ANEXO_HASH: (SHA-256, CD_ATENDIMENTO) -> CD_ARQUIVO_DOCUMENTO.
+ *
+ * Carregado no startup e alimentado depois de cada commit de anexo. Não expira
+ * (um anexo feito continua feito). Se a tabela não coube inteira no limite
+ * (mv2000.anexo.hash.cache.size), o índice é "incompleto" e um miss precisa
+ * ser confirmado no banco.
+ */
+public class AnexoHashIndex {
+
+    private static AnexoHashIndex instance;
+
+    private final int tamanhoMaximo;
+    private final ConcurrentHashMap<String, Long> anexados = new ConcurrentHashMap<>();
+
+    private volatile boolean completo;
+
+    private AnexoHashIndex(int tamanhoMaximo) {
+        this.tamanhoMaximo = Math.max(0, tamanhoMaximo);
+    }
+
+    public static synchronized AnexoHashIndex getInstance() {
+        if (instance == null) {
+            instance = new AnexoHashIndex(AppConfig.getInstance().getMv2000AnexoHashCacheSize());
+        }
+        return instance;
+    }
+
+    public static String chave(String hash, Long cdAtendimento) {
+        return hash + ":" + cdAtendimento;
+    }
+
+    public int getTamanhoMaximo() {
+        return tamanhoMaximo;
+    }
+
+    /** @return CD_ARQUIVO_DOCUMENTO já anexado com esse conteúdo no atendimento, ou null */
+    public Long buscar(String hash, Long cdAtendimento) {
+        return anexados.get(chave(hash, cdAtendimento));
+    }
+
+    /** Sem a chave no índice completo, o documento com certeza ainda não foi anexado. */
+    public boolean isCompleto() {
+        return completo;
+    }
+
+    public void registrar(String hash, Long cdAtendimento, Long cdArquivoDocumento) {
+        if (anexados.size() >= tamanhoMaximo) {
+            completo = false;
+            return;
+        }
+        anexados.put(chave(hash, cdAtendimento), cdArquivoDocumento);
+    }
+
+    void carregar(Map<String, Long> chaves, boolean tabelaInteira) {
+        anexados.clear();
+        anexados.putAll(chaves);
+        completo = tabelaInteira;
+    }
+
+    public int tamanho() {
+        return anexados.size();
+    }
+}
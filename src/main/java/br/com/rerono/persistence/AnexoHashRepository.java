@@ -0,0 +1,191 @@
+package br.com.rerono.persistence;
+
+import br.com.rerono.config.DatabaseConfig;
+import br.com.rerono.model.DocumentoAnexo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Anexos já feitos no MV2000, por SHA-256 do conteúdo e atendimento (script 06).
+ * Consulta primeiro o {@link AnexoHashIndex}; o banco só é lido quando o índice
+ * não cobre a tabela inteira.
+ */
+public class AnexoHashRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnexoHashRepository.class);
+
+    public static final String TABELA = "DBAMV.RERONO_ANEXO_HASH";
+
+    /** Limite do Oracle para expressões em uma lista IN (ORA-01795). */
+    private static final int MAX_IN_LIST = 1000;
+
+    private final DatabaseConfig dbConfig;
+    private final AnexoHashIndex index;
+
+    public AnexoHashRepository() {
+        this.dbConfig = DatabaseConfig.getInstance();
+        this.index = AnexoHashIndex.getInstance();
+    }
+
+    /**
+     * Startup: carrega os anexos mais recentes (até o limite do índice).
+     */
+    public void carregarIndice() throws SQLException {
+        int limite = index.getTamanhoMaximo();
+        if (limite <= 0) return;
+
+        String sql = "SELECT HASH_CONTEUDO, CD_ATENDIMENTO, CD_ARQUIVO_DOCUMENTO FROM " + TABELA +
+                " ORDER BY DT_CRIACAO DESC FETCH FIRST ? ROWS ONLY";
+
+        Map<String, Long> chaves = new HashMap<>();
+        int linhas = 0;
+
+        try (Connection conn = dbConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, limite + 1);
+            ps.setFetchSize(1000);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (++linhas > limite) break;
+                    chaves.put(AnexoHashIndex.chave(rs.getString(1), rs.getLong(2)), rs.getLong(3));
+                }
+            }
+        }
+
+        index.carregar(chaves, linhas <= limite);
+        logger.info("Índice de anexos por hash carregado: {} entradas{}", chaves.size(),
+                linhas <= limite ? "" : " (parcial, misses consultam o banco)");
+    }
+
+    /**
+     * Para cada documento com hash, o CD_ARQUIVO_DOCUMENTO já anexado com o mesmo
+     * conteúdo no mesmo atendimento (chave {@link AnexoHashIndex#chave}).
+     */
+    public Map<String, Long> buscarAnexados(List<DocumentoAnexo> documentos) throws SQLException {
+        Map<String, Long> out = new HashMap<>();
+        Set<String> consultar = new LinkedHashSet<>();
+
+        for (DocumentoAnexo doc : documentos) {
+            String hash = hashDe(doc);
+            if (hash == null) continue;
+
+            Long existente = index.buscar(hash, doc.getCdAtendimento());
+            if (existente != null) {
+                out.put(AnexoHashIndex.chave(hash, doc.getCdAtendimento()), existente);
+            } else if (!index.isCompleto()) {
+                consultar.add(hash);
+            }
+        }
+
+        if (consultar.isEmpty()) return out;
+
+        List<String> hashes = new ArrayList<>(consultar);
+
+        try (Connection conn = dbConfig.getConnection()) {
+            // Oracle aceita até 1000 expressões no IN (ORA-01795)
+            for (int ini = 0; ini < hashes.size(); ini += MAX_IN_LIST) {
+                buscarAnexadosBloco(conn, hashes.subList(ini, Math.min(hashes.size(), ini + MAX_IN_LIST)), out);
+            }
+        }
+
+        return out;
+    }
+
+    private void buscarAnexadosBloco(Connection conn, List<String> hashes, Map<String, Long> out) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT HASH_CONTEUDO, CD_ATENDIMENTO, CD_ARQUIVO_DOCUMENTO FROM " + TABELA + " WHERE HASH_CONTEUDO IN (");
+        for (int i = 0; i < hashes.size(); i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        sql.append(")");
+
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < hashes.size(); i++) {
+                ps.setString(i + 1, hashes.get(i));
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String hash = rs.getString(1);
+                    long cdAtendimento = rs.getLong(2);
+                    long cdArquivo = rs.getLong(3);
+                    out.put(AnexoHashIndex.chave(hash, cdAtendimento), cdArquivo);
+                    index.registrar(hash, cdAtendimento, cdArquivo);
+                }
+            }
+        }
+    }
+
+    /**
+     * Registra o hash do documento na transação do anexo, antes dos inserts do MV2000
+     * (o CD_ARQUIVO_DOCUMENTO já vem reservado).
+     *
+     * A PK (hash, atendimento) decide entre threads e nós: se outra sessão anexou o mesmo
+     * conteúdo depois que o índice foi carregado, o insert espera o commit dela e falha
+     * com ORA-00001; só o statement é desfeito e o documento volta como já anexado.
+     *
+     * @return null se registrado agora; senão o CD_ARQUIVO_DOCUMENTO já anexado
+     */
+    public Long registrarOuBuscar(Connection conn, DocumentoAnexo doc) throws SQLException {
+        String hash = hashDe(doc);
+        if (hash == null) return null;
+
+        String sql = "INSERT INTO " + TABELA +
+                " (HASH_CONTEUDO, CD_ATENDIMENTO, CD_ARQUIVO_DOCUMENTO, DS_NOME_ARQUIVO) VALUES (?, ?, ?, ?)";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, hash);
+            ps.setLong(2, doc.getCdAtendimento());
+            ps.setLong(3, doc.getCdArquivoDocumento());
+            ps.setString(4, doc.getNomeArquivo());
+            ps.executeUpdate();
+            return null;
+        } catch (SQLException e) {
+            // ORA-00001: PK_RERONO_ANEXO_HASH. Qualquer outro erro sobe.
+            if (e.getErrorCode() != 1) throw e;
+        }
+
+        String busca = "SELECT CD_ARQUIVO_DOCUMENTO FROM " + TABELA + " WHERE HASH_CONTEUDO = ? AND CD_ATENDIMENTO = ?";
+        try (PreparedStatement ps = conn.prepareStatement(busca)) {
+            ps.setString(1, hash);
+            ps.setLong(2, doc.getCdAtendimento());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Hash " + hash + " violou a PK mas não foi encontrado em " + TABELA);
+                }
+                long existente = rs.getLong(1);
+                logger.debug("Hash {} já registrado por outra sessão no atendimento {}", hash, doc.getCdAtendimento());
+                return existente;
+            }
+        }
+    }
+
+    /** Depois do commit: os documentos passam a constar no índice em memória. */
+    public void publicarNoIndice(List<DocumentoAnexo> documentos) {
+        for (DocumentoAnexo doc : documentos) {
+            String hash = hashDe(doc);
+            if (hash != null) {
+                index.registrar(hash, doc.getCdAtendimento(), doc.getCdArquivoDocumento());
+            }
+        }
+    }
+
+    private static String hashDe(DocumentoAnexo doc) {
+        String hash = doc.getConteudo() != null ? doc.getConteudo().getHash() : null;
+        return hash == null || hash.isEmpty() ? null : hash;
+    }
+}
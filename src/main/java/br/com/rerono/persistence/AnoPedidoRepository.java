@@ -0,0 +1,88 @@
+package br.com.rerono.persistence;
+
+import br.com.rerono.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ano aprendido por CodPedApoio (DBAMV.RERONO_ANO_PEDIDO).
+ * Script: scripts/04_ano_cod_ped_apoio.sql
+ */
+public class AnoPedidoRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnoPedidoRepository.class);
+
+    private static final String TABELA = "DBAMV.RERONO_ANO_PEDIDO";
+
+    private final DatabaseConfig dbConfig;
+
+    public AnoPedidoRepository() {
+        this.dbConfig = DatabaseConfig.getInstance();
+    }
+
+    /**
+     * Os {@code limite} mais recentes (CodPedApoio -> ano).
+     */
+    public Map<String, Integer> carregarRecentes(int limite) throws SQLException {
+        String sql =
+                "SELECT COD_PED_APOIO, ANO_COD_PED_APOIO FROM " + TABELA + " " +
+                "ORDER BY DT_ATUALIZACAO DESC " +
+                "FETCH FIRST ? ROWS ONLY";
+
+        Map<String, Integer> out = new HashMap<>();
+
+        try (Connection conn = dbConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, limite);
+            ps.setFetchSize(1000);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.put(rs.getString("COD_PED_APOIO"), rs.getInt("ANO_COD_PED_APOIO"));
+                }
+            }
+        }
+
+        return out;
+    }
+
+    /**
+     * Grava os anos aprendidos num único batch.
+     */
+    public void gravar(Map<String, Integer> anos) throws SQLException {
+        if (anos == null || anos.isEmpty()) return;
+
+        String sql =
+                "MERGE INTO " + TABELA + " t " +
+                "USING (SELECT ? AS COD_PED_APOIO, ? AS ANO_COD_PED_APOIO FROM dual) s " +
+                "ON (t.COD_PED_APOIO = s.COD_PED_APOIO) " +
+                "WHEN MATCHED THEN UPDATE SET " +
+                "  t.ANO_COD_PED_APOIO = s.ANO_COD_PED_APOIO, " +
+                "  t.DT_ATUALIZACAO = SYSTIMESTAMP " +
+                "WHEN NOT MATCHED THEN INSERT " +
+                "  (COD_PED_APOIO, ANO_COD_PED_APOIO, DT_ATUALIZACAO) " +
+                "VALUES " +
+                "  (s.COD_PED_APOIO, s.ANO_COD_PED_APOIO, SYSTIMESTAMP)";
+
+        try (Connection conn = dbConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            for (Map.Entry<String, Integer> e : anos.entrySet()) {
+                ps.setString(1, e.getKey());
+                ps.setInt(2, e.getValue());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        logger.debug("Anos de CodPedApoio gravados: {}", anos.size());
+    }
+}
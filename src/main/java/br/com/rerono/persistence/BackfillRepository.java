@@ -0,0 +1,76 @@
+package br.com.rerono.persistence;
+
+import br.com.rerono.config.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Checkpoint do backfill do getResultado (DBAMV.RERONO_BACKFILL_FATIA).
+ * Script: scripts/03_controle_incremental.sql
+ */
+public class BackfillRepository {
+
+    private static final String TABELA = "DBAMV.RERONO_BACKFILL_FATIA";
+
+    private final DatabaseConfig dbConfig;
+
+    public BackfillRepository() {
+        this.dbConfig = DatabaseConfig.getInstance();
+    }
+
+    /**
+     * @return início de cada fatia já concluída do backfill {@code chave}
+     */
+    public Set<LocalDateTime> buscarFatiasConcluidas(String chave) throws SQLException {
+        String sql = "SELECT DT_INICIO FROM " + TABELA + " WHERE CHAVE = ?";
+        Set<LocalDateTime> out = new HashSet<>();
+
+        try (Connection conn = dbConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, chave);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add(rs.getTimestamp("DT_INICIO").toLocalDateTime());
+                }
+            }
+        }
+
+        return out;
+    }
+
+    /**
+     * Marca a fatia como concluída na transação de quem chama (a do upsert do mapa).
+     */
+    public void marcarConcluida(Connection conn, String chave, LocalDateTime inicio, LocalDateTime fim, int pares)
+            throws SQLException {
+        String sql =
+                "MERGE INTO " + TABELA + " t " +
+                "USING (SELECT ? AS CHAVE, ? AS DT_INICIO FROM dual) s " +
+                "ON (t.CHAVE = s.CHAVE AND t.DT_INICIO = s.DT_INICIO) " +
+                "WHEN MATCHED THEN UPDATE SET " +
+                "  t.DT_FIM = ?, t.QT_PARES = ?, t.DT_CONCLUSAO = SYSTIMESTAMP " +
+                "WHEN NOT MATCHED THEN INSERT " +
+                "  (CHAVE, DT_INICIO, DT_FIM, QT_PARES, DT_CONCLUSAO) " +
+                "VALUES " +
+                "  (s.CHAVE, s.DT_INICIO, ?, ?, SYSTIMESTAMP)";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, chave);
+            ps.setTimestamp(2, Timestamp.valueOf(inicio));
+            ps.setTimestamp(3, Timestamp.valueOf(fim));
+            ps.setInt(4, pares);
+            ps.setTimestamp(5, Timestamp.valueOf(fim));
+            ps.setInt(6, pares);
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package br.com.rerono.persistence;
+
+import br.com.rerono.config.AppConfig;
+import br.com.rerono.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Pendentes em espera (script 07): CD_PED_LAB que falharam por ainda não estarem
+ * liberados no Pardini ficam fora da seleção até DT_PROXIMA_TENTATIVA.
+ *
+ * Intervalo: base * 2^(tentativas - 1), limitado ao máximo. Passado o horizonte desde
+ * a primeira falha, o pedido é desistido e só volta com um novo mapeamento.
+ */
+public class BackoffRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackoffRepository.class);
+
+    public static final String TABELA = "DBAMV.RERONO_PENDENTE_BACKOFF";
+
+    /**
+     * Backoff em uso: worker.backoff=true e a tabela do script 07 existe. Sem a tabela,
+     * o filtro das consultas de pendentes e a limpeza no upsert do mapa falhariam
+     * (ORA-00942) e o worker pararia; o backoff é desligado no lugar.
+     */
+    public static boolean isHabilitado() {
+        return AppConfig.getInstance().isWorkerBackoff()
+                && DatabaseConfig.getInstance().tabelaOpcional(TABELA, "worker.backoff=true (scripts/07)", "seguindo sem backoff");
+    }
+
+    /**
+     * Filtro para a seleção de pendentes: {@code alias} é a ITPED_LAB da consulta.
+     */
+    public static String filtroElegiveis(String alias) {
+        return "NOT EXISTS (SELECT 1 FROM " + TABELA + " b " +
+                "WHERE b.CD_PED_LAB = TO_CHAR(" + alias + ".CD_PED_LAB) " +
+                "AND (b.SN_DESISTIDO = 'S' OR b.DT_PROXIMA_TENTATIVA > SYSTIMESTAMP))";
+    }
+
+    private static final String SQL_FALHA =
+            "MERGE INTO " + TABELA + " t " +
+            "USING (SELECT ? AS CD_PED_LAB, ? AS DS_MOTIVO FROM dual) s " +
+            "ON (t.CD_PED_LAB = s.CD_PED_LAB) " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "  t.QT_TENTATIVAS = t.QT_TENTATIVAS + 1, " +
+            "  t.DT_PROXIMA_TENTATIVA = SYSTIMESTAMP + NUMTODSINTERVAL(LEAST(? * POWER(2, t.QT_TENTATIVAS), ?), 'MINUTE'), " +
+            "  t.SN_DESISTIDO = CASE WHEN t.DT_PRIMEIRA_FALHA < SYSTIMESTAMP - NUMTODSINTERVAL(?, 'DAY') THEN 'S' ELSE 'N' END, " +
+            "  t.DS_MOTIVO = s.DS_MOTIVO, " +
+            "  t.DT_ATUALIZACAO = SYSTIMESTAMP " +
+            "WHEN NOT MATCHED THEN INSERT " +
+            "  (CD_PED_LAB, QT_TENTATIVAS, DT_PRIMEIRA_FALHA, DT_PROXIMA_TENTATIVA, SN_DESISTIDO, DS_MOTIVO, DT_ATUALIZACAO) " +
+            "VALUES " +
+            "  (s.CD_PED_LAB, 1, SYSTIMESTAMP, SYSTIMESTAMP + NUMTODSINTERVAL(?, 'MINUTE'), 'N', s.DS_MOTIVO, SYSTIMESTAMP)";
+
+    private static final String SQL_LIMPAR = "DELETE FROM " + TABELA + " WHERE CD_PED_LAB = ?";
+
+    private final DatabaseConfig dbConfig;
+    private final int baseMinutos;
+    private final int maxMinutos;
+    private final int desistirDias;
+
+    public BackoffRepository() {
+        AppConfig config = AppConfig.getInstance();
+        this.dbConfig = DatabaseConfig.getInstance();
+        this.baseMinutos = Math.max(1, config.getWorkerBackoffBaseMinutes());
+        this.maxMinutos = Math.max(baseMinutos, config.getWorkerBackoffMaxMinutes());
+        this.desistirDias = Math.max(1, config.getWorkerBackoffDesistirDias());
+    }
+
+    /**
+     * Registra uma falha "ainda não liberado" por CD_PED_LAB (motivo por pedido), em um batch.
+     */
+    public void registrarFalhas(Map<String, String> motivos) throws SQLException {
+        if (motivos == null || motivos.isEmpty()) return;
+
+        try (Connection conn = dbConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FALHA)) {
+
+            for (Map.Entry<String, String> e : motivos.entrySet()) {
+                String motivo = e.getValue();
+                ps.setString(1, e.getKey());
+                ps.setString(2, motivo != null && motivo.length() > 400 ? motivo.substring(0, 400) : motivo);
+                ps.setInt(3, baseMinutos);
+                ps.setInt(4, maxMinutos);
+                ps.setInt(5, desistirDias);
+                ps.setInt(6, baseMinutos);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        logger.debug("Backoff registrado para {} CD_PED_LAB", motivos.size());
+    }
+
+    /** Pedidos anexados: saem do backoff. */
+    public void limpar(Collection<String> cdPedLabs) throws SQLException {
+        if (cdPedLabs == null || cdPedLabs.isEmpty()) return;
+
+        try (Connection conn = dbConfig.getConnection()) {
+            limpar(conn, cdPedLabs);
+        }
+    }
+
+    /**
+     * Mesma limpeza, na transação de quem chama (ex.: upsert do mapa: o CodPedLab voltou
+     * no getResultado, então o pedido fica elegível de imediato, inclusive os desistidos).
+     */
+    public void limpar(Connection conn, Collection<String> cdPedLabs) throws SQLException {
+        if (cdPedLabs == null || cdPedLabs.isEmpty()) return;
+
+        try (PreparedStatement ps = conn.prepareStatement(SQL_LIMPAR)) {
+            for (String cdPedLab : cdPedLabs) {
+                ps.setString(1, cdPedLab);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+}
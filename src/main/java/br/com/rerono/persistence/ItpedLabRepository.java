@@ -1,6 +1,7 @@
 package br.com.rerono.persistence;
 
 import br.com.rerono.config.DatabaseConfig;
+import br.com.rerono.model.AtendimentoPedLab;
 import br.com.rerono.model.PedidoLabPendente;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,9 +15,12 @@ public class ItpedLabRepository {
     private static final Logger logger = LoggerFactory.getLogger(ItpedLabRepository.class);
 
     private final DatabaseConfig dbConfig;
+    // pedidos em backoff (script 07) ficam fora da seleção até a próxima tentativa
+    private final boolean backoff;
 
     public ItpedLabRepository() {
         this.dbConfig = DatabaseConfig.getInstance();
+        this.backoff = BackoffRepository.isHabilitado();
     }
 
     /**
@@ -27,7 +31,20 @@ public class ItpedLabRepository {
      * - A data pode ser tratada como SYSDATE do lado da aplicação (LocalDateTime.now()) no getResultado.
      */
     public List<PedidoLabPendente> buscarPendentesAssinatura(int limite) throws SQLException {
+        return buscarPendentesAssinatura(null, limite, limite);
+    }
 
+    /**
+     * Uma página do keyset de pendentes: CD_PED_LAB > {@code aposCdPedLab} (null = do início),
+     * na ordem de CD_PED_LAB. Passando o último CD_PED_LAB de cada página, percorre todos os
+     * pendentes sem OFFSET e sem que um pedido parado no início bloqueie os demais.
+     *
+     * @param fetchSize linhas trazidas do Oracle por round trip
+     */
+    public List<PedidoLabPendente> buscarPendentesAssinatura(String aposCdPedLab, int limite, int fetchSize)
+            throws SQLException {
+
+        // sem "? IS NULL OR ...": o predicado fica simples e o Oracle pode usar range scan em CD_PED_LAB
         String sql = """
             SELECT DISTINCT
                 i.CD_PED_LAB,
@@ -35,6 +52,10 @@ public class ItpedLabRepository {
             FROM ITPED_LAB i
             WHERE i.SN_ASSINADO = 'N'
               AND i.CD_PED_LAB IS NOT NULL
+            """
+                + (aposCdPedLab != null ? "  AND i.CD_PED_LAB > ?\n" : "")
+                + (backoff ? "  AND " + BackoffRepository.filtroElegiveis("i") + "\n" : "")
+                + """
             ORDER BY i.CD_PED_LAB
             FETCH FIRST ? ROWS ONLY
             """;
@@ -44,7 +65,12 @@ public class ItpedLabRepository {
         try (Connection conn = dbConfig.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ps.setInt(1, limite);
+            int i = 1;
+            if (aposCdPedLab != null) {
+                ps.setString(i++, aposCdPedLab);
+            }
+            ps.setInt(i, limite);
+            ps.setFetchSize(Math.max(1, Math.min(fetchSize, limite)));
 
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
@@ -55,7 +81,95 @@ public class ItpedLabRepository {
             }
         }
 
-        logger.info("ITPED_LAB pendentes (SN_ASSINADO='N'): {}", out.size());
+        logger.info("ITPED_LAB pendentes (SN_ASSINADO='N') após {}: {}", aposCdPedLab, out.size());
+        return out;
+    }
+
+    /**
+     * Página do keyset só com pendentes acionáveis: SN_ASSINADO='N' e já presentes no
+     * mapa Pardini. Traz junto o CodPedApoio (linha mais recente do mapa) e o
+     * atendimento/paciente (maior CD_ATENDIMENTO do pedido + ATENDIME), tudo em uma
+     * consulta; pedidos ainda sem mapeamento nem saem do banco.
+     */
+    public List<PedidoLabPendente> buscarPendentesAcionaveis(String aposCdPedLab, int limite, int fetchSize)
+            throws SQLException {
+
+        // TO_CHAR: o mapa guarda o CodPedLab como texto, seja qual for o tipo de CD_PED_LAB
+        String sql = """
+            WITH pendentes AS (
+                SELECT DISTINCT i.CD_PED_LAB
+                FROM ITPED_LAB i
+                WHERE i.SN_ASSINADO = 'N'
+                  AND i.CD_PED_LAB IS NOT NULL
+            """
+                + (aposCdPedLab != null ? "      AND i.CD_PED_LAB > ?\n" : "")
+                + (backoff ? "      AND " + BackoffRepository.filtroElegiveis("i") + "\n" : "")
+                + """
+                  AND EXISTS (SELECT 1 FROM DBAMV.RERONO_PARDINI_MAPA m
+                              WHERE m.COD_PED_LAB = TO_CHAR(i.CD_PED_LAB))
+                ORDER BY i.CD_PED_LAB
+                FETCH FIRST ? ROWS ONLY
+            ),
+            atend AS (
+                SELECT i.CD_PED_LAB, MAX(i.CD_ATENDIMENTO) AS CD_ATENDIMENTO
+                FROM ITPED_LAB i
+                JOIN pendentes p ON p.CD_PED_LAB = i.CD_PED_LAB
+                GROUP BY i.CD_PED_LAB
+            ),
+            mapa AS (
+                SELECT m.COD_PED_LAB,
+                       MAX(m.COD_PED_APOIO) KEEP (DENSE_RANK LAST ORDER BY m.DT_ATUALIZACAO) AS COD_PED_APOIO
+                FROM DBAMV.RERONO_PARDINI_MAPA m
+                WHERE m.COD_PED_LAB IN (SELECT TO_CHAR(CD_PED_LAB) FROM pendentes)
+                GROUP BY m.COD_PED_LAB
+            )
+            SELECT t.CD_PED_LAB,
+                   t.CD_ATENDIMENTO,
+                   a.CD_ATENDIMENTO AS CD_ATENDIMENTO_MV,
+                   a.CD_PACIENTE,
+                   mp.COD_PED_APOIO
+            FROM atend t
+            JOIN mapa mp ON mp.COD_PED_LAB = TO_CHAR(t.CD_PED_LAB)
+            LEFT JOIN ATENDIME a ON a.CD_ATENDIMENTO = t.CD_ATENDIMENTO
+            ORDER BY t.CD_PED_LAB
+            """;
+
+        List<PedidoLabPendente> out = new ArrayList<>();
+
+        try (Connection conn = dbConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            if (aposCdPedLab != null) {
+                ps.setString(i++, aposCdPedLab);
+            }
+            ps.setInt(i, limite);
+            ps.setFetchSize(Math.max(1, Math.min(fetchSize, limite)));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String cdPedLab = rs.getString("CD_PED_LAB");
+
+                    PedidoLabPendente p = new PedidoLabPendente(cdPedLab, "N");
+                    p.setCodPedApoio(rs.getString("COD_PED_APOIO"));
+
+                    long cdAtendimento = rs.getLong("CD_ATENDIMENTO");
+                    if (!rs.wasNull()) {
+                        rs.getLong("CD_ATENDIMENTO_MV");
+                        boolean existe = !rs.wasNull();
+
+                        long cdPaciente = rs.getLong("CD_PACIENTE");
+                        Long paciente = rs.wasNull() ? null : cdPaciente;
+
+                        p.setAtendimento(new AtendimentoPedLab(cdPedLab, cdAtendimento, paciente, existe));
+                    }
+
+                    out.add(p);
+                }
+            }
+        }
+
+        logger.info("ITPED_LAB pendentes com mapeamento Pardini após {}: {}", aposCdPedLab, out.size());
         return out;
     }
 }
@@ -0,0 +1,202 @@
+package br.com.rerono.persistence;
+
+import br.com.rerono.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Leases de CD_PED_LAB entre instâncias do worker (script 08).
+ *
+ * Reivindicar: MERGE que só assume o pedido se não há lease, se o lease venceu
+ * (nó caído) ou se já é nosso. Quem ficou com cada pedido é confirmado relendo
+ * a tabela, sem depender de contagens do batch.
+ */
+public class LeaseRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaseRepository.class);
+
+    private static final String TABELA = "DBAMV.RERONO_LEASE_PEDIDO";
+
+    private static final String SQL_REIVINDICAR =
+            "MERGE INTO " + TABELA + " t " +
+            "USING (SELECT ? AS CD_PED_LAB FROM dual) s " +
+            "ON (t.CD_PED_LAB = s.CD_PED_LAB) " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "  t.NM_NO = ?, " +
+            "  t.DT_EXPIRA = SYSTIMESTAMP + NUMTODSINTERVAL(?, 'SECOND'), " +
+            "  t.DT_REIVINDICACAO = SYSTIMESTAMP " +
+            "  WHERE t.DT_EXPIRA < SYSTIMESTAMP OR t.NM_NO = ? " +
+            "WHEN NOT MATCHED THEN INSERT " +
+            "  (CD_PED_LAB, NM_NO, DT_EXPIRA, DT_REIVINDICACAO) " +
+            "VALUES " +
+            "  (s.CD_PED_LAB, ?, SYSTIMESTAMP + NUMTODSINTERVAL(?, 'SECOND'), SYSTIMESTAMP)";
+
+    private final DatabaseConfig dbConfig;
+    private final String no;
+    private final int segundos;
+
+    public LeaseRepository(String no, int segundos) {
+        this.dbConfig = DatabaseConfig.getInstance();
+        this.no = no;
+        this.segundos = Math.max(30, segundos);
+    }
+
+    public String getNo() {
+        return no;
+    }
+
+    /**
+     * Tenta assumir os pedidos para este nó.
+     *
+     * @return os CD_PED_LAB que ficaram com este nó (os demais estão com outra instância)
+     */
+    public Set<String> reivindicar(List<String> cdPedLabs) throws SQLException {
+        Set<String> nossos = new HashSet<>();
+        if (cdPedLabs.isEmpty()) return nossos;
+
+        Connection conn = null;
+
+        try {
+            conn = dbConfig.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(SQL_REIVINDICAR)) {
+                try {
+                    for (String cdPedLab : cdPedLabs) {
+                        bindReivindicar(ps, cdPedLab);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                } catch (BatchUpdateException e) {
+                    // outro nó inseriu o mesmo pedido ao mesmo tempo: refaz um a um, ignorando os que perdemos
+                    ps.clearBatch();
+                    for (String cdPedLab : cdPedLabs) {
+                        bindReivindicar(ps, cdPedLab);
+                        try {
+                            ps.executeUpdate();
+                        } catch (SQLIntegrityConstraintViolationException ex) {
+                            logger.debug("CD_PED_LAB={} reivindicado por outro nó", cdPedLab);
+                        }
+                    }
+                }
+            }
+
+            conn.commit();
+
+            nossos.addAll(buscarNossos(conn, cdPedLabs));
+            return nossos;
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Erro no rollback: {}", ex.getMessage());
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    logger.error("Erro ao fechar conexão: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Heartbeat: estende todos os leases deste nó.
+     *
+     * @return quantos leases foram renovados
+     */
+    public int renovar() throws SQLException {
+        String sql = "UPDATE " + TABELA + " SET DT_EXPIRA = SYSTIMESTAMP + NUMTODSINTERVAL(?, 'SECOND') WHERE NM_NO = ?";
+
+        try (Connection conn = dbConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, segundos);
+            ps.setString(2, no);
+            return ps.executeUpdate();
+        }
+    }
+
+    /** Devolve os pedidos que já terminaram o pipeline (só os deste nó). */
+    public void liberar(Collection<String> cdPedLabs) throws SQLException {
+        if (cdPedLabs.isEmpty()) return;
+
+        try (Connection conn = dbConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "DELETE FROM " + TABELA + " WHERE CD_PED_LAB = ? AND NM_NO = ?")) {
+            for (String cdPedLab : cdPedLabs) {
+                ps.setString(1, cdPedLab);
+                ps.setString(2, no);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /** Encerramento: devolve todos os pedidos deste nó. */
+    public int liberarTodos() throws SQLException {
+        try (Connection conn = dbConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM " + TABELA + " WHERE NM_NO = ?")) {
+            ps.setString(1, no);
+            return ps.executeUpdate();
+        }
+    }
+
+    private void bindReivindicar(PreparedStatement ps, String cdPedLab) throws SQLException {
+        ps.setString(1, cdPedLab);
+        ps.setString(2, no);
+        ps.setInt(3, segundos);
+        ps.setString(4, no);
+        ps.setString(5, no);
+        ps.setInt(6, segundos);
+    }
+
+    private Set<String> buscarNossos(Connection conn, List<String> todos) throws SQLException {
+        Set<String> out = new HashSet<>();
+        // Oracle aceita até 1000 expressões no IN
+        for (int ini = 0; ini < todos.size(); ini += 1000) {
+            out.addAll(buscarNossosBloco(conn, todos.subList(ini, Math.min(todos.size(), ini + 1000))));
+        }
+        return out;
+    }
+
+    private Set<String> buscarNossosBloco(Connection conn, List<String> cdPedLabs) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT CD_PED_LAB FROM " + TABELA + " WHERE NM_NO = ? AND CD_PED_LAB IN (");
+        for (int i = 0; i < cdPedLabs.size(); i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        sql.append(")");
+
+        Set<String> out = new HashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            ps.setString(1, no);
+            for (int i = 0; i < cdPedLabs.size(); i++) {
+                ps.setString(i + 2, cdPedLabs.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add(rs.getString(1));
+                }
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,160 @@
+package br.com.rerono.persistence;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Extrai, em streaming (StAX), os pares CodPedLab -> CodPedApoio de cada <Pedido>
+ * da resposta do getResultado, entregando um a um ao consumidor.
+ *
+ * Nada da resposta fica em memória além do <Pedido> corrente, seja qual for o
+ * tamanho da janela. SOAP Fault e XML inválido viram IOException.
+ */
+public class MapaPardiniParser {
+
+    private static final int MAX_TEXTO = 4000;
+
+    /**
+     * Configurada uma única vez e nunca mais alterada;
+     * createXMLStreamReader pode ser chamado por várias threads.
+     */
+    private static final XMLInputFactory FACTORY = criarFactory();
+
+    @FunctionalInterface
+    public interface ParConsumer {
+        void aceitar(String codPedLab, String codPedApoio) throws Exception;
+    }
+
+    private static XMLInputFactory criarFactory() {
+        XMLInputFactory f = XMLInputFactory.newInstance();
+        f.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        f.setProperty(XMLInputFactory.IS_COALESCING, false);
+        f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return f;
+    }
+
+    /**
+     * @return quantidade de pares entregues
+     */
+    public int parse(InputStream in, ParConsumer consumer) throws IOException {
+        try {
+            return parse(FACTORY.createXMLStreamReader(in), consumer);
+        } catch (XMLStreamException e) {
+            throw new IOException("XML do getResultado inválido: " + e.getMessage(), e);
+        }
+    }
+
+    public int parse(Reader in, ParConsumer consumer) throws IOException {
+        try {
+            return parse(FACTORY.createXMLStreamReader(in), consumer);
+        } catch (XMLStreamException e) {
+            throw new IOException("XML do getResultado inválido: " + e.getMessage(), e);
+        }
+    }
+
+    private int parse(XMLStreamReader reader, ParConsumer consumer) throws IOException {
+        int pares = 0;
+
+        boolean fault = false;
+        String faultString = null;
+
+        // profundidade dentro do <Pedido> corrente (0 = fora)
+        int nivelPedido = 0;
+        String codPedLab = null;
+        String codPedApoio = null;
+
+        try {
+            while (reader.hasNext()) {
+                int evento = reader.next();
+
+                if (evento == XMLStreamConstants.START_ELEMENT) {
+                    String tag = reader.getLocalName();
+
+                    if ("Fault".equals(tag)) {
+                        fault = true;
+
+                    } else if ("faultstring".equals(tag) && faultString == null) {
+                        faultString = lerTexto(reader);
+
+                    } else if (nivelPedido == 0) {
+                        if ("Pedido".equals(tag)) {
+                            nivelPedido = 1;
+                            codPedLab = null;
+                            codPedApoio = null;
+                        }
+
+                    } else if ("CodPedLab".equals(tag) && codPedLab == null) {
+                        codPedLab = lerTexto(reader);
+
+                    } else if ("CodPedApoio".equals(tag) && codPedApoio == null) {
+                        codPedApoio = lerTexto(reader);
+
+                    } else {
+                        nivelPedido++;
+                    }
+
+                } else if (evento == XMLStreamConstants.END_ELEMENT && nivelPedido > 0) {
+                    if (--nivelPedido == 0 && !isBlank(codPedLab) && !isBlank(codPedApoio)) {
+                        consumer.aceitar(codPedLab, codPedApoio);
+                        pares++;
+                    }
+                }
+            }
+
+        } catch (IOException e) {
+            throw e;
+        } catch (XMLStreamException e) {
+            throw new IOException("XML do getResultado inválido: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            try {
+                reader.close();
+            } catch (XMLStreamException ignored) {
+                // nada a fazer
+            }
+        }
+
+        if (fault) {
+            throw new IOException("SOAP Fault no getResultado: " + (isBlank(faultString) ? "sem faultstring" : faultString));
+        }
+
+        return pares;
+    }
+
+    /**
+     * Texto do elemento corrente até o END_ELEMENT correspondente (trim).
+     */
+    private static String lerTexto(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder sb = new StringBuilder();
+        int nivel = 1;
+
+        while (nivel > 0 && reader.hasNext()) {
+            int evento = reader.next();
+            switch (evento) {
+                case XMLStreamConstants.START_ELEMENT -> nivel++;
+                case XMLStreamConstants.END_ELEMENT -> nivel--;
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA,
+                     XMLStreamConstants.SPACE, XMLStreamConstants.ENTITY_REFERENCE -> {
+                    if (sb.length() < MAX_TEXTO) {
+                        sb.append(reader.getTextCharacters(), reader.getTextStart(),
+                                Math.min(reader.getTextLength(), MAX_TEXTO - sb.length()));
+                    }
+                }
+                default -> { }
+            }
+        }
+
+        return sb.toString().trim();
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+}
@@ -0,0 +1,139 @@
+package br.com.rerono.persistence;
+
+import br.com.rerono.config.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache em memória do mapa CodPedLab -> CodPedApoio (RERONO_PARDINI_MAPA).
+ *
+ * - limitado a pardini.mapa.cache.size entradas, descartando as mais antigas (FIFO)
+ * - cada entrada vale por pardini.mapa.cache.ttl.minutes
+ * - só responde positivamente: um miss sempre vai ao banco, porque o mapa também é
+ *   gravado por outros nós / pelo job do mapa e entradas expiram antes das demais
+ *
+ * Alimentado no aquecimento (startup) e pelo upsert do mapa, depois do commit.
+ */
+public class PardiniMapaCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PardiniMapaCache.class);
+
+    private static PardiniMapaCache instance;
+
+    private final int tamanhoMaximo;
+    private final long ttlNanos;
+
+    private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> ordemInsercao = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong descartes = new AtomicLong();
+
+    private static final class Entrada {
+        final String codPedApoio;
+        final long gravadoEm;
+
+        Entrada(String codPedApoio, long gravadoEm) {
+            this.codPedApoio = codPedApoio;
+            this.gravadoEm = gravadoEm;
+        }
+    }
+
+    private PardiniMapaCache(int tamanhoMaximo, long ttlMinutos) {
+        this.tamanhoMaximo = Math.max(0, tamanhoMaximo);
+        this.ttlNanos = TimeUnit.MINUTES.toNanos(Math.max(1, ttlMinutos));
+    }
+
+    public static synchronized PardiniMapaCache getInstance() {
+        if (instance == null) {
+            AppConfig config = AppConfig.getInstance();
+            instance = new PardiniMapaCache(config.getPardiniMapaCacheSize(), config.getPardiniMapaCacheTtlMinutes());
+        }
+        return instance;
+    }
+
+    public boolean isHabilitado() {
+        return tamanhoMaximo > 0;
+    }
+
+    public int getTamanhoMaximo() {
+        return tamanhoMaximo;
+    }
+
+    /**
+     * @return CodPedApoio em cache (e dentro do TTL), ou null
+     */
+    public String buscar(String codPedLab) {
+        if (!isHabilitado()) return null;
+
+        Entrada e = entradas.get(codPedLab);
+        if (e != null && System.nanoTime() - e.gravadoEm < ttlNanos) {
+            hits.incrementAndGet();
+            return e.codPedApoio;
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void gravar(String codPedLab, String codPedApoio) {
+        if (!isHabilitado() || codPedLab == null || codPedApoio == null) return;
+
+        Entrada anterior = entradas.put(codPedLab, new Entrada(codPedApoio, System.nanoTime()));
+        if (anterior == null) {
+            ordemInsercao.add(codPedLab);
+            descartarExcedente();
+        }
+    }
+
+    public void gravarTodos(Map<String, String> pares) {
+        if (!isHabilitado() || pares == null) return;
+        for (Map.Entry<String, String> par : pares.entrySet()) {
+            gravar(par.getKey(), par.getValue());
+        }
+    }
+
+    /**
+     * Carga inicial (mapeamentos mais recentes, até o tamanho máximo).
+     */
+    void carregar(Map<String, String> pares) {
+        if (!isHabilitado()) return;
+
+        gravarTodos(pares);
+        logger.info("Cache do mapa Pardini aquecido: {} entradas", entradas.size());
+    }
+
+    private void descartarExcedente() {
+        while (entradas.size() > tamanhoMaximo) {
+            String maisAntiga = ordemInsercao.poll();
+            if (maisAntiga == null) break;
+
+            if (entradas.remove(maisAntiga) != null) {
+                descartes.incrementAndGet();
+            }
+        }
+    }
+
+    public void limpar() {
+        entradas.clear();
+        ordemInsercao.clear();
+    }
+
+    public String getEstatisticas() {
+        long h = hits.get();
+        long m = misses.get();
+        long total = h + m;
+
+        return String.format("entradas=%d/%d, hits=%d, misses=%d (%.1f%% sem banco), descartes=%d",
+                entradas.size(), tamanhoMaximo, h, m,
+                total == 0 ? 0.0 : h * 100.0 / total,
+                descartes.get());
+    }
+}
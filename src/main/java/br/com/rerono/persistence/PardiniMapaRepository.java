@@ -1,21 +1,25 @@
 package br.com.rerono.persistence;
 
+import br.com.rerono.config.AppConfig;
+import br.com.rerono.config.DatabaseConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
+import java.nio.file.Files;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class PardiniMapaRepository {
 
@@ -24,12 +28,38 @@ public class PardiniMapaRepository {
     // tabela fixada no schema DBAMV conforme solicitado
     private static final String TABELA = "DBAMV.RERONO_PARDINI_MAPA";
 
+    private static final String SQL_MERGE =
+            "MERGE INTO " + TABELA + " t " +
+            "USING (SELECT ? AS COD_PED_LAB, ? AS COD_PED_APOIO FROM dual) s " +
+            "ON (t.COD_PED_LAB = s.COD_PED_LAB) " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "  t.COD_PED_APOIO = s.COD_PED_APOIO, " +
+            "  t.DT_ATUALIZACAO = SYSTIMESTAMP " +
+            "WHEN NOT MATCHED THEN INSERT " +
+            "  (COD_PED_LAB, COD_PED_APOIO, DT_ATUALIZACAO) " +
+            "VALUES " +
+            "  (s.COD_PED_LAB, s.COD_PED_APOIO, SYSTIMESTAMP)";
+
+    private final DatabaseConfig dbConfig;
+    private final PardiniMapaCache cache;
+    private final WatermarkRepository watermarkRepository;
+    // todo CodPedLab presente no getResultado sai do backoff na mesma transação (null = backoff desligado)
+    private final BackoffRepository backoffRepository;
+    private final MapaPardiniParser parser = new MapaPardiniParser();
+
+    // pares por lote (IN-list da pré-leitura + executeBatch do MERGE); Oracle aceita até 1000 no IN
+    private final int tamanhoLote;
+
     /**
      * Mantém compatibilidade com o IntegracaoWorker:
      * - construtor sem parâmetros
      */
     public PardiniMapaRepository() {
-        // nada aqui; config vem de env/props
+        this.dbConfig = DatabaseConfig.getInstance();
+        this.cache = PardiniMapaCache.getInstance();
+        this.watermarkRepository = new WatermarkRepository();
+        this.backoffRepository = BackoffRepository.isHabilitado() ? new BackoffRepository() : null;
+        this.tamanhoLote = Math.max(1, Math.min(1000, AppConfig.getInstance().getPardiniMapaBatchSize()));
     }
 
     /**
@@ -54,6 +84,33 @@ public class PardiniMapaRepository {
         }
     }
 
+    /**
+     * Contagem de um upsert em lote do mapa.
+     */
+    public static class ResultadoUpsertMapa {
+        private int inseridos;
+        private int atualizados;
+        private int inalterados;
+
+        public int getInseridos() { return inseridos; }
+        public int getAtualizados() { return atualizados; }
+        public int getInalterados() { return inalterados; }
+
+        /** Linhas efetivamente gravadas (inseridas + atualizadas). */
+        public int getGravados() { return inseridos + atualizados; }
+
+        public void somar(ResultadoUpsertMapa outro) {
+            inseridos += outro.inseridos;
+            atualizados += outro.atualizados;
+            inalterados += outro.inalterados;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d inseridos, %d atualizados, %d inalterados", inseridos, atualizados, inalterados);
+        }
+    }
+
     /**
      * Atualiza o mapa CodPedLab -> CodPedApoio a partir do XML salvo pelo HpwsClient
      * OU a partir do XML em string (quando o worker passa a resposta SOAP inteira).
@@ -61,37 +118,38 @@ public class PardiniMapaRepository {
      * Mantém assinatura esperada pelo worker:
      * atualizarMapaDeXml(String caminhoArquivoXml)
      *
-     * @return quantidade de upserts realizados
+     * @return quantidade de linhas gravadas (inseridas + atualizadas)
      */
     public int atualizarMapaDeXml(String caminhoArquivoXml) {
+        ResultadoUpsertMapa r = atualizarMapaDeXml(caminhoArquivoXml, null, null);
+        return r != null ? r.getGravados() : 0;
+    }
+
+    /**
+     * Mesmo que atualizarMapaDeXml(String), avançando o watermark {@code chaveWatermark}
+     * para {@code ate} na mesma transação do upsert (modo incremental).
+     * Sem chave, só atualiza o mapa.
+     *
+     * @return contagem do upsert, ou null se a resposta não pôde ser usada
+     *         (fault, XML inválido, arquivo ausente, erro no banco) — nesse caso o watermark não anda
+     */
+    public ResultadoUpsertMapa atualizarMapaDeXml(String caminhoArquivoXml, String chaveWatermark, LocalDateTime ate) {
 
         if (isBlank(caminhoArquivoXml)) {
             log.warn("atualizarMapaDeXml chamado com valor vazio/nulo");
-            return 0;
+            return null;
         }
 
         String trimmed = caminhoArquivoXml.trim();
 
         // 1) Se veio um XML/SOAP inteiro (fault ou envelope), NÃO é caminho de arquivo.
         if (trimmed.startsWith("<")) {
-
-            // Se for SOAP Fault, só loga e ignora (não tem como extrair Pedido dali)
-            if (trimmed.contains("<SOAP-ENV:Fault") || trimmed.contains("<soap:Fault")
-                    || trimmed.toLowerCase().contains("<faultstring")) {
-
-                String trecho = trimmed.substring(0, Math.min(300, trimmed.length()));
-                log.warn("SOAP Fault recebido no getResultado. Ignorando atualização do mapa. Trecho={}", trecho);
-                return 0;
-            }
-
-            // Se não for fault, tenta parsear como XML e procurar tags <Pedido> (mesmo dentro do SOAP)
             try {
-                Document doc = parseXmlFromString(trimmed);
-                return atualizarMapaAPartirDoDocument(doc);
+                return gravarStreaming(sink -> parser.parse(new StringReader(trimmed), sink), avancoDoWatermark(chaveWatermark, ate));
             } catch (Exception e) {
                 String trecho = trimmed.substring(0, Math.min(300, trimmed.length()));
-                log.error("Não foi possível parsear XML recebido como string (trecho={}).", trecho, e);
-                return 0;
+                log.warn("getResultado sem atualização do mapa: {} (trecho={})", e.getMessage(), trecho);
+                return null;
             }
         }
 
@@ -99,24 +157,66 @@ public class PardiniMapaRepository {
         File xml = new File(trimmed);
         if (!xml.exists() || !xml.isFile()) {
             log.warn("Arquivo XML não encontrado para atualizar mapa: {}", trimmed);
-            return 0;
+            return null;
         }
 
-        try {
-            Document doc = parseXmlFromFile(xml);
-            return atualizarMapaAPartirDoDocument(doc);
+        try (InputStream in = Files.newInputStream(xml.toPath())) {
+            return gravarStreaming(sink -> parser.parse(in, sink), avancoDoWatermark(chaveWatermark, ate));
         } catch (Exception e) {
             log.error("Erro ao processar XML do getResultado para atualizar mapa. Arquivo={}", trimmed, e);
-            return 0;
+            return null;
         }
     }
 
+    /**
+     * Atualiza o mapa direto do stream da resposta do getResultado (StAX): os pares vão
+     * para o upsert em lotes à medida que chegam, numa única transação, e o watermark
+     * (se informado) avança no mesmo commit. Memória constante, qualquer que seja a janela.
+     *
+     * @throws IOException  SOAP Fault ou XML inválido (nada é commitado)
+     * @throws SQLException erro no banco (rollback)
+     */
+    public ResultadoUpsertMapa atualizarMapaDeStream(InputStream in, String chaveWatermark, LocalDateTime ate)
+            throws IOException, SQLException {
+        return gravarStreaming(sink -> parser.parse(in, sink), avancoDoWatermark(chaveWatermark, ate));
+    }
+
+    /**
+     * Igual a atualizarMapaDeStream, executando {@code naMesmaTransacao} antes do commit
+     * (ex.: checkpoint do backfill).
+     */
+    public ResultadoUpsertMapa atualizarMapaDeStream(InputStream in, AcaoNaTransacao naMesmaTransacao)
+            throws IOException, SQLException {
+        return gravarStreaming(sink -> parser.parse(in, sink), naMesmaTransacao);
+    }
+
+    /**
+     * Gravação extra que precisa ser commitada junto com o upsert do mapa.
+     */
+    @FunctionalInterface
+    public interface AcaoNaTransacao {
+        void executar(Connection conn, ResultadoUpsertMapa resultado) throws SQLException;
+    }
+
+    private AcaoNaTransacao avancoDoWatermark(String chaveWatermark, LocalDateTime ate) {
+        if (chaveWatermark == null || ate == null) return null;
+        return (conn, resultado) -> watermarkRepository.avancar(conn, chaveWatermark, ate);
+    }
+
     /**
      * Busca o CodPedApoio pelo CodPedLab.
      * Mantém compatibilidade com o worker.
+     *
+     * Consulta primeiro o PardiniMapaCache; um miss consulta a tabela (outro nó ou o
+     * job do mapa podem ter gravado o CodPedLab depois que o cache foi carregado).
      */
     public MapeamentoPardini buscarPorCodPedLab(String codPedLab) throws SQLException {
 
+        String emCache = cache.buscar(codPedLab);
+        if (emCache != null) {
+            return new MapeamentoPardini(codPedLab, emCache);
+        }
+
         String sql =
                 "SELECT COD_PED_LAB, COD_PED_APOIO " +
                 "FROM " + TABELA + " " +
@@ -124,7 +224,7 @@ public class PardiniMapaRepository {
                 "ORDER BY DT_ATUALIZACAO DESC " +
                 "FETCH FIRST 1 ROWS ONLY";
 
-        try (Connection conn = abrirConexao();
+        try (Connection conn = dbConfig.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, codPedLab);
@@ -133,6 +233,7 @@ public class PardiniMapaRepository {
                 if (rs.next()) {
                     String cod = rs.getString("COD_PED_LAB");
                     String apoio = rs.getString("COD_PED_APOIO");
+                    cache.gravar(cod, apoio);
                     return new MapeamentoPardini(cod, apoio);
                 }
             }
@@ -141,123 +242,275 @@ public class PardiniMapaRepository {
         return null;
     }
 
-    // ======================
-    // Implementação interna
-    // ======================
+    /**
+     * Grava os pares CodPedLab -> CodPedApoio numa única transação, em lotes:
+     * cada lote lê o que já existe (IN-list) e manda só os novos/alterados
+     * num MERGE com executeBatch. Pares repetidos: vale o último.
+     */
+    public ResultadoUpsertMapa upsertLote(Map<String, String> pares) throws SQLException {
+        if (pares == null || pares.isEmpty()) return new ResultadoUpsertMapa();
 
-    private int atualizarMapaAPartirDoDocument(Document doc) throws SQLException {
-        if (doc == null) return 0;
+        Connection conn = null;
+        try {
+            conn = dbConfig.getConnection();
+            conn.setAutoCommit(false);
+
+            ResultadoUpsertMapa r = upsertLote(conn, pares);
+
+            conn.commit();
+            cache.gravarTodos(pares);
+            return r;
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                    log.error("Rollback do upsert do mapa: {}", e.getMessage());
+                } catch (SQLException ex) {
+                    log.error("Erro no rollback: {}", ex.getMessage());
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    log.error("Erro ao fechar conexão: {}", e.getMessage());
+                }
+            }
+        }
+    }
 
-        doc.getDocumentElement().normalize();
+    /**
+     * Mesmo upsert em lote, na transação de quem chama (sem commit).
+     * Quem chama deve publicar os pares com publicarNoCache(...) depois do commit.
+     */
+    public ResultadoUpsertMapa upsertLote(Connection conn, Map<String, String> pares) throws SQLException {
+        ResultadoUpsertMapa total = new ResultadoUpsertMapa();
+        if (pares == null || pares.isEmpty()) return total;
 
-        NodeList pedidos = doc.getElementsByTagName("Pedido");
+        List<Map.Entry<String, String>> lista = new ArrayList<>(pares.entrySet());
 
-        int totalPares = 0;
-        int upserts = 0;
+        try (PreparedStatement merge = conn.prepareStatement(SQL_MERGE)) {
+            for (int ini = 0; ini < lista.size(); ini += tamanhoLote) {
+                List<Map.Entry<String, String>> lote = lista.subList(ini, Math.min(lista.size(), ini + tamanhoLote));
+                total.somar(upsertChunk(conn, merge, lote));
+            }
+        }
 
-        for (int i = 0; i < pedidos.getLength(); i++) {
-            Element pedido = (Element) pedidos.item(i);
+        return total;
+    }
 
-            String codPedApoio = getText(pedido, "CodPedApoio");
-            String codPedLab = getText(pedido, "CodPedLab");
+    @FunctionalInterface
+    private interface Extracao {
+        int executar(MapaPardiniParser.ParConsumer sink) throws IOException;
+    }
 
-            if (isBlank(codPedLab) || isBlank(codPedApoio)) {
-                continue;
+    /**
+     * Sink do upsert em streaming: acumula pares até o tamanho do lote e grava cada
+     * lote na transação aberta.
+     * Os pares gravados só vão para o cache depois do commit (publicarNoCache); até lá
+     * ficam guardados no máximo os últimos N (N = tamanho do cache, que descarta os
+     * mais antigos de qualquer forma).
+     */
+    private final class SinkMapa implements MapaPardiniParser.ParConsumer {
+        private final Connection conn;
+        private final PreparedStatement merge;
+        private final Map<String, String> lote = new LinkedHashMap<>();
+        private final ResultadoUpsertMapa total = new ResultadoUpsertMapa();
+        private final Map<String, String> aPublicar = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> maisAntigo) {
+                return size() > cache.getTamanhoMaximo();
             }
+        };
 
-            totalPares++;
-            upsertMapa(codPedLab.trim(), codPedApoio.trim());
-            upserts++;
+        SinkMapa(Connection conn, PreparedStatement merge) {
+            this.conn = conn;
+            this.merge = merge;
         }
 
-        log.info("Mapeamentos extraídos do XML (CodPedLab -> CodPedApoio): {}", totalPares);
-        if (totalPares == 0) {
-            log.info("Nenhum par CodPedLab/CodPedApoio encontrado no XML do getResultado");
+        @Override
+        public void aceitar(String codPedLab, String codPedApoio) throws SQLException {
+            lote.put(codPedLab, codPedApoio);
+            if (lote.size() >= tamanhoLote) {
+                descarregar();
+            }
         }
 
-        return upserts;
+        void descarregar() throws SQLException {
+            if (lote.isEmpty()) return;
+            total.somar(upsertChunk(conn, merge, new ArrayList<>(lote.entrySet())));
+            if (cache.isHabilitado()) {
+                aPublicar.putAll(lote);
+            }
+            lote.clear();
+        }
     }
 
-    private Document parseXmlFromFile(File xml) throws Exception {
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        dbf.setNamespaceAware(false);
-        dbf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+    private ResultadoUpsertMapa gravarStreaming(Extracao extracao, AcaoNaTransacao naMesmaTransacao)
+            throws IOException, SQLException {
+        Connection conn = null;
+        try {
+            conn = dbConfig.getConnection();
+            conn.setAutoCommit(false);
+
+            ResultadoUpsertMapa r;
+            int pares;
+            SinkMapa sink;
+            try (PreparedStatement merge = conn.prepareStatement(SQL_MERGE)) {
+                sink = new SinkMapa(conn, merge);
+                pares = extracao.executar(sink);
+                sink.descarregar();
+                r = sink.total;
+            }
 
-        DocumentBuilder db = dbf.newDocumentBuilder();
-        return db.parse(xml);
-    }
+            if (naMesmaTransacao != null) {
+                naMesmaTransacao.executar(conn, r);
+            }
+
+            conn.commit();
+            publicarNoCache(sink.aPublicar);
 
-    private Document parseXmlFromString(String xml) throws Exception {
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        dbf.setNamespaceAware(false);
-        dbf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            log.info("Mapeamentos extraídos do XML (CodPedLab -> CodPedApoio): {}; mapa gravado: {}", pares, r);
+            return r;
+
+        } catch (IOException | SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    log.error("Erro no rollback: {}", ex.getMessage());
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    log.error("Erro ao fechar conexão: {}", e.getMessage());
+                }
+            }
+        }
+    }
 
-        DocumentBuilder db = dbf.newDocumentBuilder();
-        InputSource is = new InputSource(new StringReader(xml));
-        return db.parse(is);
+    /** Atualiza o cache com pares já commitados. */
+    public void publicarNoCache(Map<String, String> pares) {
+        cache.gravarTodos(pares);
     }
 
-    private void upsertMapa(String codPedLab, String codPedApoio) throws SQLException {
+    /**
+     * Carrega no cache os mapeamentos mais recentes (até o tamanho do cache).
+     * Chamado no startup do worker.
+     */
+    public void aquecerCache() throws SQLException {
+        if (!cache.isHabilitado()) return;
 
+        int limite = cache.getTamanhoMaximo();
         String sql =
-                "MERGE INTO " + TABELA + " t " +
-                "USING (SELECT ? AS COD_PED_LAB, ? AS COD_PED_APOIO FROM dual) s " +
-                "ON (t.COD_PED_LAB = s.COD_PED_LAB) " +
-                "WHEN MATCHED THEN UPDATE SET " +
-                "  t.COD_PED_APOIO = s.COD_PED_APOIO, " +
-                "  t.DT_ATUALIZACAO = SYSTIMESTAMP " +
-                "WHEN NOT MATCHED THEN INSERT " +
-                "  (COD_PED_LAB, COD_PED_APOIO, DT_ATUALIZACAO) " +
-                "VALUES " +
-                "  (s.COD_PED_LAB, s.COD_PED_APOIO, SYSTIMESTAMP)";
-
-        try (Connection conn = abrirConexao();
+                "SELECT COD_PED_LAB, COD_PED_APOIO " +
+                "FROM " + TABELA + " " +
+                "ORDER BY DT_ATUALIZACAO DESC " +
+                "FETCH FIRST ? ROWS ONLY";
+
+        // mais recente primeiro: putIfAbsent mantém a linha mais nova de cada CodPedLab
+        Map<String, String> pares = new LinkedHashMap<>();
+
+        try (Connection conn = dbConfig.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ps.setString(1, codPedLab);
-            ps.setString(2, codPedApoio);
+            ps.setInt(1, limite);
+            ps.setFetchSize(1000);
 
-            ps.executeUpdate();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    pares.putIfAbsent(rs.getString("COD_PED_LAB"), rs.getString("COD_PED_APOIO"));
+                }
+            }
         }
+
+        cache.carregar(pares);
     }
 
-    private Connection abrirConexao() throws SQLException {
-        String url = getCfg("ORACLE_URL", "oracle.url", "DB_URL", "db.url");
-        String user = getCfg("ORACLE_USER", "oracle.user", "DB_USER", "db.user");
-        String pass = getCfg("ORACLE_PASSWORD", "oracle.password", "DB_PASSWORD", "db.password");
+    public String getEstatisticasCache() {
+        return cache.getEstatisticas();
+    }
 
-        if (isBlank(url) || isBlank(user) || pass == null) {
-            throw new SQLException(
-                    "Config Oracle não encontrada. Defina ORACLE_URL/ORACLE_USER/ORACLE_PASSWORD " +
-                    "(ou oracle.url/oracle.user/oracle.password via -D)."
-            );
-        }
+    // ======================
+    // Implementação interna
+    // ======================
 
-        return DriverManager.getConnection(url, user, pass);
-    }
+    /**
+     * Um lote: pré-leitura do que existe, classificação e MERGE em batch só do que mudou.
+     */
+    private ResultadoUpsertMapa upsertChunk(Connection conn, PreparedStatement merge,
+                                            List<Map.Entry<String, String>> lote) throws SQLException {
+        Map<String, String> existentes = buscarExistentes(conn, lote);
+        ResultadoUpsertMapa r = new ResultadoUpsertMapa();
+        List<String> gravados = new ArrayList<>();
 
-    private static String getCfg(String envKey, String propKey, String envKey2, String propKey2) {
-        // prioridade: env -> system property -> env alternativo -> system property alternativo
-        String v = System.getenv(envKey);
-        if (!isBlank(v)) return v;
+        for (Map.Entry<String, String> par : lote) {
+            String atual = existentes.get(par.getKey());
 
-        v = System.getProperty(propKey);
-        if (!isBlank(v)) return v;
+            if (atual != null && atual.equals(par.getValue())) {
+                r.inalterados++;
+                continue;
+            }
 
-        v = System.getenv(envKey2);
-        if (!isBlank(v)) return v;
+            if (existentes.containsKey(par.getKey())) r.atualizados++;
+            else r.inseridos++;
 
-        v = System.getProperty(propKey2);
-        if (!isBlank(v)) return v;
+            merge.setString(1, par.getKey());
+            merge.setString(2, par.getValue());
+            merge.addBatch();
+            gravados.add(par.getKey());
+        }
 
-        return null;
+        if (r.getGravados() > 0) {
+            merge.executeBatch();
+
+            // só os pares novos/alterados: a janela reenvia todo o mapa a cada ciclo e limpar
+            // os inalterados zeraria as tentativas. Laudo liberado depois do mapeamento sai do
+            // backoff quando o pedido é anexado (IntegracaoWorker.persistirBackoff)
+            if (backoffRepository != null) {
+                backoffRepository.limpar(conn, gravados);
+            }
+        }
+
+        return r;
     }
 
-    private static String getText(Element parent, String tagName) {
-        NodeList list = parent.getElementsByTagName(tagName);
-        if (list == null || list.getLength() == 0) return null;
-        String v = list.item(0).getTextContent();
-        return v != null ? v.trim() : null;
+    /**
+     * CodPedLab -> CodPedApoio já gravados para as chaves do lote
+     * (havendo mais de uma linha, vale a mais recente).
+     */
+    private Map<String, String> buscarExistentes(Connection conn, List<Map.Entry<String, String>> lote) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT COD_PED_LAB, COD_PED_APOIO FROM " + TABELA + " WHERE COD_PED_LAB IN (");
+        for (int i = 0; i < lote.size(); i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        sql.append(") ORDER BY DT_ATUALIZACAO");
+
+        Map<String, String> out = new HashMap<>();
+
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < lote.size(); i++) {
+                ps.setString(i + 1, lote.get(i).getKey());
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.put(rs.getString("COD_PED_LAB"), rs.getString("COD_PED_APOIO"));
+                }
+            }
+        }
+
+        return out;
     }
 
     private static boolean isBlank(String s) {
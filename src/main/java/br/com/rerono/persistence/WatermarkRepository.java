@@ -0,0 +1,80 @@
+package br.com.rerono.persistence;
+
+import br.com.rerono.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * High-water marks das consultas incrementais (DBAMV.RERONO_WATERMARK).
+ * Script: scripts/03_controle_incremental.sql
+ */
+public class WatermarkRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatermarkRepository.class);
+
+    public static final String TABELA = "DBAMV.RERONO_WATERMARK";
+
+    /** getResultado por período que alimenta o RERONO_PARDINI_MAPA. */
+    public static final String MAPA_PARDINI = "PARDINI_GETRESULTADO_MAPA";
+
+    private final DatabaseConfig dbConfig;
+
+    public WatermarkRepository() {
+        this.dbConfig = DatabaseConfig.getInstance();
+    }
+
+    /**
+     * @return watermark atual, ou null se a chave ainda não existe
+     */
+    public LocalDateTime buscar(String chave) throws SQLException {
+        String sql = "SELECT DT_WATERMARK FROM " + TABELA + " WHERE CHAVE = ?";
+
+        try (Connection conn = dbConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, chave);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    Timestamp ts = rs.getTimestamp("DT_WATERMARK");
+                    return ts != null ? ts.toLocalDateTime() : null;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Avança o watermark na transação de quem chama (sem commit).
+     * Nunca retrocede: um período mais antigo concluído depois não move a marca para trás.
+     */
+    public void avancar(Connection conn, String chave, LocalDateTime ate) throws SQLException {
+        String sql =
+                "MERGE INTO " + TABELA + " t " +
+                "USING (SELECT ? AS CHAVE, ? AS DT_WATERMARK FROM dual) s " +
+                "ON (t.CHAVE = s.CHAVE) " +
+                "WHEN MATCHED THEN UPDATE SET " +
+                "  t.DT_WATERMARK = GREATEST(t.DT_WATERMARK, s.DT_WATERMARK), " +
+                "  t.DT_ATUALIZACAO = SYSTIMESTAMP " +
+                "WHEN NOT MATCHED THEN INSERT " +
+                "  (CHAVE, DT_WATERMARK, DT_ATUALIZACAO) " +
+                "VALUES " +
+                "  (s.CHAVE, s.DT_WATERMARK, SYSTIMESTAMP)";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, chave);
+            ps.setTimestamp(2, Timestamp.valueOf(ate));
+            ps.executeUpdate();
+        }
+
+        logger.debug("Watermark {} -> {}", chave, ate);
+    }
+}
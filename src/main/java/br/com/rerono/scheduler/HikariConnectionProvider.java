@@ -0,0 +1,30 @@
+package br.com.rerono.scheduler;
+
+import br.com.rerono.config.DatabaseConfig;
+import org.quartz.utils.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Conexões do JobStore JDBC do Quartz a partir do pool Hikari da aplicação,
+ * em vez de um segundo pool só para o scheduler.
+ * Instanciado pelo Quartz (org.quartz.dataSource.*.connectionProvider.class).
+ */
+public class HikariConnectionProvider implements ConnectionProvider {
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return DatabaseConfig.getInstance().getConnection();
+    }
+
+    @Override
+    public void shutdown() {
+        // o pool é da aplicação; fechado junto com ela
+    }
+
+    @Override
+    public void initialize() {
+        DatabaseConfig.getInstance();
+    }
+}
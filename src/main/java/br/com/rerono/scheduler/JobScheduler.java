@@ -7,9 +7,22 @@ import org.quartz.impl.StdSchedulerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Properties;
+import java.util.Set;
+
 /**
  * Agendador de tarefas usando Quartz.
  * Executa o worker de integração em intervalos configuráveis.
+ *
+ * scheduler.jobstore=ram: agenda em memória (uma instância).
+ * scheduler.jobstore=jdbc: JobStore em cluster nas tabelas QRTZ_ (script 09), usando o
+ * pool Hikari; cada disparo roda em um só nó e, se ele cair, outro assume o agendamento.
+ *
+ * scheduler.modo=continuo: um laço emenda os ciclos (fora do Quartz), pausando sleep.min.ms
+ * enquanto houver anexos novos e dobrando a pausa a cada ciclo sem anexo até sleep.max.ms.
+ *
+ * scheduler.mapa.interval.minutes > 0: a atualização do mapa (getResultado) vira um job
+ * próprio com essa cadência; os ciclos de download/anexo só leem o mapa (tabela + cache).
  */
 public class JobScheduler {
     
@@ -17,43 +30,152 @@ public class JobScheduler {
     
     private Scheduler scheduler;
     private IntegracaoWorker worker;
+    private Thread laco;
+    private volatile boolean ativo;
+    private final Object pausaLaco = new Object();
+    
+    private static final JobKey INTEGRACAO = JobKey.jobKey("integracaoJob", "rerono");
+    private static final JobKey MAPA = JobKey.jobKey("mapaPardiniJob", "rerono");
     
     public void iniciar() throws SchedulerException {
         AppConfig config = AppConfig.getInstance();
-        int intervaloMinutos = config.getSchedulerIntervalMinutes();
-        
-        logger.info("Inicializando scheduler com intervalo de {} minutos", intervaloMinutos);
+        boolean continuo = "continuo".equals(config.getSchedulerModo());
+        int mapaMinutos = config.getSchedulerMapaIntervalMinutes();
         
         // Criar worker
         worker = new IntegracaoWorker();
         
+        if (continuo && mapaMinutos <= 0) {
+            iniciarContinuo(config);
+            return;
+        }
+        
         // Configurar Quartz
-        scheduler = StdSchedulerFactory.getDefaultScheduler();
+        scheduler = criarScheduler(config);
         
-        // Definir job
-        JobDetail job = JobBuilder.newJob(IntegracaoJob.class)
-            .withIdentity("integracaoJob", "rerono")
-            .build();
+        // Passar worker para os jobs (no contexto do scheduler: não vai para o banco no modo jdbc)
+        scheduler.getContext().put("worker", worker);
+        
+        if (mapaMinutos > 0) {
+            agendar(MapaPardiniJob.class, MAPA, "mapaPardiniTrigger", mapaMinutos);
+            logger.info("Mapa Pardini com job próprio a cada {} minutos", mapaMinutos);
+        } else {
+            // agendamento de uma configuração anterior (jdbc) não pode continuar disparando
+            scheduler.deleteJob(MAPA);
+        }
         
-        // Passar worker para o job
-        job.getJobDataMap().put("worker", worker);
+        if (continuo) {
+            scheduler.deleteJob(INTEGRACAO);
+        } else {
+            int intervaloMinutos = config.getSchedulerIntervalMinutes();
+            logger.info("Inicializando scheduler com intervalo de {} minutos", intervaloMinutos);
+            agendar(IntegracaoJob.class, INTEGRACAO, "integracaoTrigger", intervaloMinutos);
+        }
+        
+        scheduler.start();
+        logger.info("Scheduler iniciado");
+        
+        if (continuo) {
+            iniciarContinuo(config);
+        }
+    }
+    
+    private void agendar(Class<? extends Job> tipo, JobKey chave, String trigger, int intervaloMinutos)
+            throws SchedulerException {
+        JobDetail job = JobBuilder.newJob(tipo)
+            .withIdentity(chave)
+            .build();
         
-        // Definir trigger (execução periódica)
-        Trigger trigger = TriggerBuilder.newTrigger()
-            .withIdentity("integracaoTrigger", "rerono")
+        // Execução periódica; disparos perdidos (ciclo longo, nó parado)
+        // não se acumulam: segue para o próximo horário
+        Trigger t = TriggerBuilder.newTrigger()
+            .withIdentity(trigger, chave.getGroup())
             .startNow()
             .withSchedule(SimpleScheduleBuilder.simpleSchedule()
                 .withIntervalInMinutes(intervaloMinutos)
-                .repeatForever())
+                .repeatForever()
+                .withMisfireHandlingInstructionNextWithRemainingCount())
             .build();
         
-        // Agendar
-        scheduler.scheduleJob(job, trigger);
-        scheduler.start();
+        // Agendar (substitui o agendamento já gravado por outro nó / execução anterior)
+        scheduler.scheduleJob(job, Set.of(t), true);
+    }
+    
+    private void iniciarContinuo(AppConfig config) {
+        long minMs = config.getSchedulerContinuoSleepMinMs();
+        long maxMs = Math.max(minMs, config.getSchedulerContinuoSleepMaxMs());
         
-        logger.info("Scheduler iniciado. Próxima execução em {} minutos", intervaloMinutos);
+        logger.info("Inicializando modo contínuo: pausa de {}ms com anexos novos, até {}ms ocioso", minMs, maxMs);
+        
+        ativo = true;
+        laco = new Thread(() -> executarContinuo(minMs, maxMs), "Worker-continuo");
+        laco.start();
     }
     
+    /**
+     * Emenda os ciclos do worker. Com anexos novos no último ciclo (ou keyset parado no meio
+     * do backlog) a pausa volta ao mínimo; ciclos sem anexo novo dobram a pausa até o máximo.
+     * Pedidos ainda não liberados ou já anexados não contam: só repetiriam a mesma seleção.
+     */
+    private void executarContinuo(long minMs, long maxMs) {
+        long pausa = minMs;
+        
+        while (ativo) {
+            long inicio = System.currentTimeMillis();
+            try {
+                int processados = worker.executarCiclo();
+                logger.info("=== Ciclo contínuo: {} pedidos em {}ms ===",
+                    processados, System.currentTimeMillis() - inicio);
+            } catch (Exception e) {
+                logger.error("Erro no ciclo contínuo: {}", e.getMessage(), e);
+            }
+            
+            if (worker.getProcessados() > 0 || worker.isBacklogRestante()) {
+                pausa = minMs;
+            } else {
+                pausa = Math.min(maxMs, Math.max(minMs, pausa * 2));
+            }
+            
+            try {
+                logger.debug("Próximo ciclo em {}ms", pausa);
+                synchronized (pausaLaco) {
+                    if (ativo) pausaLaco.wait(pausa);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        logger.info("Laço contínuo encerrado");
+    }
+    
+    private Scheduler criarScheduler(AppConfig config) throws SchedulerException {
+        if (!"jdbc".equals(config.getSchedulerJobStore())) {
+            return StdSchedulerFactory.getDefaultScheduler();
+        }
+
+        Properties p = new Properties();
+        p.setProperty("org.quartz.scheduler.instanceName", "ReronoScheduler");
+        p.setProperty("org.quartz.scheduler.instanceId", config.getWorkerNodeId());
+        p.setProperty("org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool");
+        p.setProperty("org.quartz.threadPool.threadCount", "2");
+
+        p.setProperty("org.quartz.jobStore.class", "org.quartz.impl.jdbcjobstore.JobStoreTX");
+        p.setProperty("org.quartz.jobStore.driverDelegateClass", "org.quartz.impl.jdbcjobstore.oracle.OracleDelegate");
+        p.setProperty("org.quartz.jobStore.dataSource", "rerono");
+        p.setProperty("org.quartz.jobStore.tablePrefix", config.getSchedulerJdbcTablePrefix());
+        p.setProperty("org.quartz.jobStore.useProperties", "true");
+        p.setProperty("org.quartz.jobStore.isClustered", "true");
+        p.setProperty("org.quartz.jobStore.clusterCheckinInterval", String.valueOf(config.getSchedulerClusterCheckinMs()));
+        p.setProperty("org.quartz.jobStore.misfireThreshold", "60000");
+
+        p.setProperty("org.quartz.dataSource.rerono.connectionProvider.class", HikariConnectionProvider.class.getName());
+
+        logger.info("Quartz com JobStore JDBC em cluster: instância={}, tabelas={}*",
+                config.getWorkerNodeId(), config.getSchedulerJdbcTablePrefix());
+        return new StdSchedulerFactory(p).getScheduler();
+    }
+
     /**
      * Executa o worker imediatamente (fora do agendamento).
      */
@@ -71,6 +193,15 @@ public class JobScheduler {
      */
     public void parar() {
         try {
+            if (laco != null) {
+                logger.info("Parando laço contínuo...");
+                // acorda a pausa sem interromper: um ciclo em curso termina normalmente
+                synchronized (pausaLaco) {
+                    ativo = false;
+                    pausaLaco.notifyAll();
+                }
+                laco.join();
+            }
             if (scheduler != null && !scheduler.isShutdown()) {
                 logger.info("Parando scheduler...");
                 scheduler.shutdown(true); // true = aguardar jobs em execução
@@ -81,6 +212,9 @@ public class JobScheduler {
             logger.info("Scheduler parado com sucesso");
         } catch (SchedulerException e) {
             logger.error("Erro ao parar scheduler: {}", e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrompido aguardando o laço contínuo");
         }
     }
     
@@ -88,6 +222,9 @@ public class JobScheduler {
      * Verifica se o scheduler está em execução.
      */
     public boolean isRunning() {
+        if (laco != null) {
+            return laco.isAlive();
+        }
         try {
             return scheduler != null && scheduler.isStarted() && !scheduler.isShutdown();
         } catch (SchedulerException e) {
@@ -97,15 +234,21 @@ public class JobScheduler {
     
     /**
      * Job do Quartz que executa o worker.
+     * Nunca roda sobreposto: um ciclo lento adia o próximo disparo (em cluster, vale entre nós).
      */
+    @DisallowConcurrentExecution
     public static class IntegracaoJob implements Job {
         
         private static final Logger jobLogger = LoggerFactory.getLogger(IntegracaoJob.class);
         
         @Override
         public void execute(JobExecutionContext context) throws JobExecutionException {
-            IntegracaoWorker worker = (IntegracaoWorker) context.getJobDetail()
-                .getJobDataMap().get("worker");
+            IntegracaoWorker worker;
+            try {
+                worker = (IntegracaoWorker) context.getScheduler().getContext().get("worker");
+            } catch (SchedulerException e) {
+                throw new JobExecutionException(e);
+            }
             
             if (worker == null) {
                 jobLogger.error("Worker não encontrado no contexto do job");
@@ -128,4 +271,33 @@ public class JobScheduler {
             }
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Job do Quartz que só atualiza o mapa CodPedLab -> CodPedApoio (getResultado).
+     * Roda na própria cadência, independente dos ciclos de download/anexo.
+     */
+    @DisallowConcurrentExecution
+    public static class MapaPardiniJob implements Job {
+        
+        private static final Logger jobLogger = LoggerFactory.getLogger(MapaPardiniJob.class);
+        
+        @Override
+        public void execute(JobExecutionContext context) throws JobExecutionException {
+            IntegracaoWorker worker;
+            try {
+                worker = (IntegracaoWorker) context.getScheduler().getContext().get("worker");
+            } catch (SchedulerException e) {
+                throw new JobExecutionException(e);
+            }
+            
+            if (worker == null) {
+                jobLogger.error("Worker não encontrado no contexto do job");
+                return;
+            }
+            
+            long inicio = System.currentTimeMillis();
+            worker.atualizarMapaPardini();
+            jobLogger.info("=== Mapa Pardini atualizado em {}ms ===", System.currentTimeMillis() - inicio);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package br.com.rerono.soap;
 
 import br.com.rerono.codec.Base64Handler;
 import br.com.rerono.config.AppConfig;
+import br.com.rerono.model.ArtefatoPardini;
 import br.com.rerono.model.ResultadoPardini;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,10 +13,14 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Cliente SOAP "na unha" para Hermes Pardini (HPWS.XMLServer)
@@ -46,6 +51,19 @@ public class HpwsClient {
     private final String soapActionGetResultadoPedido;
     private final String soapActionGetResultado;
 
+    /**
+     * Modo de parse do getResultadoPedido:
+     * - stax   -> lê a resposta em streaming (default)
+     * - legacy -> lê tudo em String e faz indexOf por tag
+     */
+    private final boolean parseStreaming;
+    private final ResultadoPedidoParser resultadoPedidoParser = new ResultadoPedidoParser();
+
+    /**
+     * Transporte HTTP (pardini.soap.transport): httpclient (pool keep-alive, default) | urlconnection
+     */
+    private final HpwsTransport transport;
+
     /**
      * Diretório onde vamos salvar artefatos (XML/PDF/PNG).
      * Pode ser sobrescrito por:
@@ -66,6 +84,9 @@ public class HpwsClient {
 
         this.soapActionGetResultadoPedido = config.getPardiniSoapActionGetResultadoPedido();
         this.soapActionGetResultado = config.getPardiniSoapActionGetResultado();
+        this.parseStreaming = !"legacy".equalsIgnoreCase(config.getPardiniSoapParser());
+        this.transport = HpwsTransport.criar(config.getPardiniSoapTransport(), connectTimeout, readTimeout,
+                config.getPardiniTotalTimeout());
 
         String out = System.getProperty("PARDINI_OUTPUT_DIR");
         if (out == null || out.isBlank()) out = System.getenv("PARDINI_OUTPUT_DIR");
@@ -84,6 +105,8 @@ public class HpwsClient {
                 "http://hermespardini.com.br/b2b/apoio/schemas/HPWS.XMLServer.getResultadoPedido";
         this.soapActionGetResultado =
                 "http://hermespardini.com.br/b2b/apoio/schemas/HPWS.XMLServer.getResultado";
+        this.parseStreaming = true;
+        this.transport = new HttpClientTransport(connectTimeout, readTimeout, null);
 
         String out = System.getProperty("PARDINI_OUTPUT_DIR");
         if (out == null || out.isBlank()) out = System.getenv("PARDINI_OUTPUT_DIR");
@@ -116,26 +139,27 @@ public class HpwsClient {
             // NUNCA logar request completo (tem senha)
             logger.debug("Request SOAP getResultadoPedido {}-{} (PDF={})", anoCodPedApoio, codPedApoio, incluirPdf);
 
-            String soapResponse = sendSoapRequest(soapRequest, soapActionGetResultadoPedido);
-            resultado.setXmlOriginal(soapResponse);
-
-            // Salvar XML sempre (mesmo fault)
-            saveXml("getResultadoPedido", anoCodPedApoio + "-" + codPedApoio, stamp, soapResponse);
+            if (parseStreaming) {
+                // Salva o XML em disco enquanto o parser StAX consome o stream (mesmo fault)
+                Path xmlPath = xmlPath("getResultadoPedido", anoCodPedApoio + "-" + codPedApoio, stamp);
+                sendSoapRequest(soapRequest, soapActionGetResultadoPedido, in -> {
+                    try (InputStream tee = teeParaArquivo(in, xmlPath)) {
+                        resultadoPedidoParser.parse(tee, resultado, (tipo, base64) ->
+                                aceitarArtefato(tipo, base64, anoCodPedApoio, codPedApoio, stamp, resultado));
+                    }
+                    return null;
+                });
+            } else {
+                String soapResponse = sendSoapRequest(soapRequest, soapActionGetResultadoPedido);
+                resultado.setXmlOriginal(soapResponse);
 
-            parseResponseGetResultadoPedido(soapResponse, resultado);
+                // Salvar XML sempre (mesmo fault)
+                saveXml("getResultadoPedido", anoCodPedApoio + "-" + codPedApoio, stamp, soapResponse);
 
-            if (resultado.isSucesso()) {
-                logger.info(
-                        "Pedido {}-{} OK. PDFs: {} ({} bytes) | Gráficos: {} ({}ms)",
-                        anoCodPedApoio, codPedApoio,
-                        resultado.getTotalPdfs(), resultado.getTamanhoTotalPdfs(),
-                        resultado.getTotalGraficos(),
-                        (System.currentTimeMillis() - t0)
-                );
+                parseResponseGetResultadoPedido(soapResponse, resultado);
             }
 
-            // Salvar arquivos (PDFs/Gráficos)
-            saveArtifactsGetResultadoPedido(anoCodPedApoio, codPedApoio, stamp, resultado);
+            concluirGetResultadoPedido(anoCodPedApoio, codPedApoio, stamp, t0, resultado);
 
         } catch (Exception e) {
             logger.error("Erro getResultadoPedido {}-{}: {}", anoCodPedApoio, codPedApoio, e.getMessage(), e);
@@ -146,6 +170,110 @@ public class HpwsClient {
         return resultado;
     }
 
+    /**
+     * Versão assíncrona do getResultadoPedido.
+     *
+     * A resposta é baixada pelo transporte sem prender thread (no HttpClient, via sendAsync
+     * gravando o corpo direto no XML de saída); só o parse/decodificação roda no executor.
+     * Nunca completa com exceção: falhas viram ResultadoPardini com sucesso=false, igual ao síncrono.
+     */
+    public CompletableFuture<ResultadoPardini> getResultadoPedidoAsync(int anoCodPedApoio, String codPedApoio,
+                                                                       int incluirPdf, Executor executor) {
+        return getResultadoPedidoAsync(anoCodPedApoio, codPedApoio, "", incluirPdf, executor);
+    }
+
+    public CompletableFuture<ResultadoPardini> getResultadoPedidoAsync(int anoCodPedApoio, String codPedApoio,
+                                                                       String codExmApoio, int incluirPdf,
+                                                                       Executor executor) {
+        ResultadoPardini resultado = new ResultadoPardini();
+        resultado.setAnoCodPedApoio(anoCodPedApoio);
+        resultado.setCodPedApoio(codPedApoio);
+
+        long t0 = System.currentTimeMillis();
+        String stamp = LocalDateTime.now().format(TS_FILE);
+
+        CompletableFuture<Path> resposta;
+        try {
+            validarConfigBasica();
+
+            String soapRequest = buildSoapRequestGetResultadoPedido(anoCodPedApoio, codPedApoio, codExmApoio, incluirPdf);
+
+            // NUNCA logar request completo (tem senha)
+            logger.debug("Request SOAP getResultadoPedido async {}-{} (PDF={})", anoCodPedApoio, codPedApoio, incluirPdf);
+
+            Path destino = destinoArquivo(nomeXml("getResultadoPedido", anoCodPedApoio + "-" + codPedApoio, stamp));
+            resposta = transport.enviarAsync(endpoint, soapActionGetResultadoPedido,
+                    soapRequest.getBytes(StandardCharsets.UTF_8), destino, executor);
+
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(falhaGetResultadoPedido(anoCodPedApoio, codPedApoio, e, resultado));
+        }
+
+        return resposta
+                .thenApplyAsync(xml -> {
+                    try {
+                        logger.info("XML salvo em: {}", xml.toAbsolutePath());
+
+                        if (parseStreaming) {
+                            try (InputStream in = new BufferedInputStream(Files.newInputStream(xml))) {
+                                resultadoPedidoParser.parse(in, resultado, (tipo, base64) ->
+                                        aceitarArtefato(tipo, base64, anoCodPedApoio, codPedApoio, stamp, resultado));
+                            }
+                        } else {
+                            String soapResponse = Files.readString(xml, StandardCharsets.UTF_8);
+                            resultado.setXmlOriginal(soapResponse);
+                            parseResponseGetResultadoPedido(soapResponse, resultado);
+                        }
+
+                        concluirGetResultadoPedido(anoCodPedApoio, codPedApoio, stamp, t0, resultado);
+                        return resultado;
+
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor)
+                .exceptionally(e -> falhaGetResultadoPedido(anoCodPedApoio, codPedApoio, causa(e), resultado));
+    }
+
+    private void concluirGetResultadoPedido(int anoCodPedApoio, String codPedApoio, String stamp,
+                                            long t0, ResultadoPardini resultado) {
+        if (resultado.isSucesso()) {
+            logger.info(
+                    "Pedido {}-{} OK. PDFs: {} ({} bytes) | Gráficos: {} ({}ms)",
+                    anoCodPedApoio, codPedApoio,
+                    resultado.getTotalPdfs(), resultado.getTamanhoTotalPdfs(),
+                    resultado.getTotalGraficos(),
+                    (System.currentTimeMillis() - t0)
+            );
+        }
+
+        // Salvar arquivos (PDFs/Gráficos) - no modo StAX já foram decodificados direto para o disco
+        if (parseStreaming) {
+            int salvos = resultado.getTotalPdfs() + resultado.getTotalGraficos();
+            if (salvos > 0) {
+                logger.info("Artefatos gravados: {} PDF(s), {} gráfico(s) | Pasta: {}",
+                        resultado.getTotalPdfs(), resultado.getTotalGraficos(), outputDir.toAbsolutePath());
+            }
+        } else {
+            saveArtifactsGetResultadoPedido(anoCodPedApoio, codPedApoio, stamp, resultado);
+        }
+    }
+
+    private ResultadoPardini falhaGetResultadoPedido(int anoCodPedApoio, String codPedApoio,
+                                                     Throwable e, ResultadoPardini resultado) {
+        logger.error("Erro getResultadoPedido {}-{}: {}", anoCodPedApoio, codPedApoio, e.getMessage(), e);
+        resultado.setSucesso(false);
+        resultado.setMensagemErro(e.getMessage());
+        return resultado;
+    }
+
+    private static Throwable causa(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
     // =========================================================
     // getResultado (XML por período)
     // =========================================================
@@ -175,11 +303,87 @@ public class HpwsClient {
         }
     }
 
+    /**
+     * getResultado em streaming: o handler recebe o corpo da resposta enquanto ele chega
+     * (o XML vai sendo salvo em disco em paralelo, como no getResultadoPedido).
+     * Diferente da versão String, falhas de rede/HTTP e do handler são propagadas.
+     */
+    public <T> T getResultado(String xmlPayload, HpwsTransport.RespostaHandler<T> handler) throws IOException {
+        String stamp = LocalDateTime.now().format(TS_FILE);
+
+        validarConfigBasica();
+
+        String soapRequest = buildSoapRequestGetResultado(xmlPayload);
+
+        // Não logar payload completo (pode conter dados sensíveis)
+        logger.debug("Request SOAP getResultado streaming (XML payload len={})", xmlPayload != null ? xmlPayload.length() : 0);
+
+        Path xmlPath = xmlPath("getResultado", "periodo", stamp);
+        return sendSoapRequest(soapRequest, soapActionGetResultado, in -> {
+            try (InputStream tee = teeParaArquivo(in, xmlPath)) {
+                return handler.tratar(tee);
+            }
+        });
+    }
+
+    /**
+     * Versão assíncrona do getResultado: a resposta é gravada em disco pelo transporte
+     * e lida como String no executor. Completa com null em caso de erro (igual ao síncrono).
+     */
+    public CompletableFuture<String> getResultadoAsync(String xmlPayload, Executor executor) {
+        String stamp = LocalDateTime.now().format(TS_FILE);
+
+        CompletableFuture<Path> resposta;
+        try {
+            validarConfigBasica();
+
+            String soapRequest = buildSoapRequestGetResultado(xmlPayload);
+
+            // Não logar payload completo (pode conter dados sensíveis)
+            logger.debug("Request SOAP getResultado async (XML payload len={})", xmlPayload != null ? xmlPayload.length() : 0);
+
+            Path destino = destinoArquivo(nomeXml("getResultado", "periodo", stamp));
+            resposta = transport.enviarAsync(endpoint, soapActionGetResultado,
+                    soapRequest.getBytes(StandardCharsets.UTF_8), destino, executor);
+
+        } catch (Exception e) {
+            logger.error("Erro getResultado: {}", e.getMessage(), e);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return resposta
+                .thenApplyAsync(xml -> {
+                    try {
+                        logger.info("XML salvo em: {}", xml.toAbsolutePath());
+                        return Files.readString(xml, StandardCharsets.UTF_8);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor)
+                .exceptionally(e -> {
+                    Throwable c = causa(e);
+                    logger.error("Erro getResultado: {}", c.getMessage(), c);
+                    return null;
+                });
+    }
+
     /**
      * ✅ Compatibilidade com o IntegracaoWorker (assinatura esperada).
      * O parâmetro "grafico" entra no XML template (se o Pardini exigir).
      */
     public String getResultadoPeriodo(LocalDateTime start, LocalDateTime end, int grafico) {
+        return getResultado(montarXmlPeriodo(start, end, grafico));
+    }
+
+    /**
+     * getResultadoPeriodo em streaming (ver getResultado(String, RespostaHandler)).
+     */
+    public <T> T getResultadoPeriodo(LocalDateTime start, LocalDateTime end, int grafico,
+                                     HpwsTransport.RespostaHandler<T> handler) throws IOException {
+        return getResultado(montarXmlPeriodo(start, end, grafico), handler);
+    }
+
+    private String montarXmlPeriodo(LocalDateTime start, LocalDateTime end, int grafico) {
         String xml = buildXmlPeriodo(start, end, grafico);
 
         // Log seguro só para diagnosticar "root inválida" (sem vazar conteúdo sensível)
@@ -195,7 +399,7 @@ public class HpwsClient {
         }
         logger.info("getResultadoPeriodo: root do payload enviado = {}", root);
 
-        return getResultado(xml);
+        return xml;
     }
 
     /**
@@ -326,40 +530,7 @@ public class HpwsClient {
     // =========================================================
 
     private String sendSoapRequest(String soapRequest, String soapAction) throws IOException {
-        URL url = new URL(endpoint);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-
-        try {
-            connection.setRequestMethod("POST");
-            connection.setDoOutput(true);
-            connection.setDoInput(true);
-            connection.setConnectTimeout(connectTimeout);
-            connection.setReadTimeout(readTimeout);
-
-            connection.setRequestProperty("Content-Type", "text/xml; charset=utf-8");
-            connection.setRequestProperty("SOAPAction", soapAction);
-
-            byte[] requestBytes = soapRequest.getBytes(StandardCharsets.UTF_8);
-            connection.setRequestProperty("Content-Length", String.valueOf(requestBytes.length));
-
-            try (OutputStream os = connection.getOutputStream()) {
-                os.write(requestBytes);
-                os.flush();
-            }
-
-            int responseCode = connection.getResponseCode();
-            logger.debug("HTTP Response Code: {}", responseCode);
-
-            InputStream inputStream;
-            if (responseCode >= 200 && responseCode < 300) {
-                inputStream = connection.getInputStream();
-            } else {
-                inputStream = connection.getErrorStream();
-                if (inputStream == null) {
-                    throw new IOException("HTTP Error: " + responseCode + " - " + connection.getResponseMessage());
-                }
-            }
-
+        return sendSoapRequest(soapRequest, soapAction, inputStream -> {
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
                 StringBuilder response = new StringBuilder();
                 String line;
@@ -368,10 +539,13 @@ public class HpwsClient {
                 }
                 return response.toString();
             }
+        });
+    }
 
-        } finally {
-            connection.disconnect();
-        }
+    private <T> T sendSoapRequest(String soapRequest, String soapAction,
+                                  HpwsTransport.RespostaHandler<T> handler) throws IOException {
+        byte[] requestBytes = soapRequest.getBytes(StandardCharsets.UTF_8);
+        return transport.enviar(endpoint, soapAction, requestBytes, handler);
     }
 
     // =========================================================
@@ -400,15 +574,14 @@ public class HpwsClient {
             for (String pdfBase64 : pdfTags) {
                 if (pdfBase64 == null || pdfBase64.isBlank()) continue;
 
-                byte[] pdfBytes = Base64Handler.decode(pdfBase64);
-                if (pdfBytes == null || pdfBytes.length == 0) continue;
+                ArtefatoPardini pdf = Base64Handler.decodeToMemory(new StringReader(pdfBase64));
+                if (pdf.getTamanho() == 0) continue;
 
-                if (!Base64Handler.isPdf(pdfBytes)) {
-                    logger.warn("Conteúdo de uma tag PDF não parece PDF válido (len={})", pdfBytes.length);
+                if (!"PDF".equals(pdf.getTipo())) {
+                    logger.warn("Conteúdo de uma tag PDF não parece PDF válido (len={})", pdf.getTamanho());
                 }
 
-                String hash = Base64Handler.calculateSha256(pdfBytes);
-                resultado.addPdf(pdfBytes, hash);
+                resultado.addPdf(pdf);
                 pdfValidos++;
             }
 
@@ -418,11 +591,10 @@ public class HpwsClient {
             for (String graficoBase64 : grafTags) {
                 if (graficoBase64 == null || graficoBase64.isBlank()) continue;
 
-                byte[] graficoBytes = Base64Handler.decode(graficoBase64);
-                if (graficoBytes == null || graficoBytes.length == 0) continue;
+                ArtefatoPardini grafico = Base64Handler.decodeToMemory(new StringReader(graficoBase64));
+                if (grafico.getTamanho() == 0) continue;
 
-                String hashG = Base64Handler.calculateSha256(graficoBytes);
-                resultado.addGrafico(graficoBytes, hashG);
+                resultado.addGrafico(grafico);
                 grafValidos++;
             }
 
@@ -446,6 +618,60 @@ public class HpwsClient {
         }
     }
 
+    /**
+     * Consumidor do parser StAX: decodifica o Base64 de uma tag <PDF>/<Grafico>
+     * em streaming direto para o arquivo do artefato (sem String/byte[] intermediários).
+     */
+    private boolean aceitarArtefato(ResultadoPedidoParser.TipoArtefato tipo, Reader base64,
+                                    int ano, String pedido, String stamp,
+                                    ResultadoPardini resultado) throws IOException {
+        boolean pdf = tipo == ResultadoPedidoParser.TipoArtefato.PDF;
+        int indice = pdf ? resultado.getTotalPdfs() : resultado.getTotalGraficos();
+        String base = String.format("pardini-%d-%s-%s-%s%02d", ano, pedido, stamp, pdf ? "pdf" : "grafico", indice);
+
+        Path destino = destinoArquivo(base + (pdf ? ".pdf" : ".bin"));
+        ArtefatoPardini artefato;
+        try {
+            // decode + SHA-256 + tamanho + tipo numa única passada
+            artefato = Base64Handler.decodeToFile(base64, destino);
+        } catch (IOException e) {
+            Files.deleteIfExists(destino);
+            throw e;
+        }
+
+        if (artefato.getTamanho() == 0) {
+            Files.deleteIfExists(destino);
+            return false;
+        }
+
+        if (pdf) {
+            if (!"PDF".equals(artefato.getTipo())) {
+                logger.warn("Conteúdo de uma tag PDF não parece PDF válido (len={})", artefato.getTamanho());
+            }
+            resultado.addPdf(artefato);
+        } else {
+            String ext = artefato.getTipo().toLowerCase();
+            if (!"bin".equals(ext)) {
+                Path renomeado = Files.move(destino, destino.resolveSibling(base + "." + ext), StandardCopyOption.REPLACE_EXISTING);
+                artefato = artefato.comArquivo(renomeado);
+            }
+            resultado.addGrafico(artefato);
+        }
+
+        return true;
+    }
+
+    /**
+     * Arquivo de destino (artefato ou XML): pasta de saída ou, se ela não estiver disponível, temporário.
+     */
+    private Path destinoArquivo(String nome) throws IOException {
+        ensureOutputDir();
+        if (Files.isDirectory(outputDir)) {
+            return outputDir.resolve(nome);
+        }
+        return Files.createTempFile("pardini-", "-" + nome);
+    }
+
     private String extractTagContent(String xml, String tagName) {
         List<String> all = extractAllTagContents(xml, tagName);
         return all.isEmpty() ? null : all.get(0);
@@ -526,11 +752,80 @@ public class HpwsClient {
         }
     }
 
+    private static String nomeXml(String operacao, String chave, String stamp) {
+        return String.format("pardini-%s-%s-%s.xml", operacao, chave, stamp);
+    }
+
+    private Path xmlPath(String operacao, String chave, String stamp) {
+        return outputDir.resolve(nomeXml(operacao, chave, stamp));
+    }
+
+    /**
+     * Copia para o arquivo tudo o que for lido do stream (o XML é salvo sem ficar inteiro na memória).
+     * Se o arquivo não puder ser criado, segue só com o stream original.
+     */
+    private InputStream teeParaArquivo(InputStream in, Path p) {
+        ensureOutputDir();
+        OutputStream out;
+        try {
+            out = new BufferedOutputStream(Files.newOutputStream(p));
+        } catch (Exception e) {
+            logger.warn("Falha ao salvar XML: {}", e.getMessage());
+            return in;
+        }
+
+        return new FilterInputStream(in) {
+            private boolean falhou;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) copiar(new byte[]{(byte) b}, 0, 1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buf, int off, int len) throws IOException {
+                int n = super.read(buf, off, len);
+                if (n > 0) copiar(buf, off, n);
+                return n;
+            }
+
+            private void copiar(byte[] buf, int off, int len) {
+                if (falhou) return;
+                try {
+                    out.write(buf, off, len);
+                } catch (IOException e) {
+                    falhou = true;
+                    logger.warn("Falha ao salvar XML: {}", e.getMessage());
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    // o parser pode parar no fim do documento: copia o restante para o arquivo ficar completo
+                    byte[] resto = new byte[8192];
+                    while (!falhou && read(resto, 0, resto.length) > 0) {
+                        // só drenando
+                    }
+                    super.close();
+                } finally {
+                    try {
+                        out.close();
+                        if (!falhou) logger.info("XML salvo em: {}", p.toAbsolutePath());
+                    } catch (IOException e) {
+                        logger.warn("Falha ao salvar XML: {}", e.getMessage());
+                    }
+                }
+            }
+        };
+    }
+
     private void saveXml(String operacao, String chave, String stamp, String xml) {
         ensureOutputDir();
         try {
-            String name = String.format("pardini-%s-%s-%s.xml", operacao, chave, stamp);
-            Path p = outputDir.resolve(name);
+            Path p = xmlPath(operacao, chave, stamp);
             Files.writeString(p, xml, StandardCharsets.UTF_8);
             logger.info("XML salvo em: {}", p.toAbsolutePath());
         } catch (Exception e) {
@@ -565,17 +860,12 @@ public class HpwsClient {
         // Gráficos (todos)
         try {
             int salvos = 0;
-            List<byte[]> graficos = resultado.getGraficos();
+            List<ArtefatoPardini> graficos = resultado.getArtefatosGrafico();
             for (int i = 0; i < graficos.size(); i++) {
-                byte[] g = graficos.get(i);
+                byte[] g = graficos.get(i).getBytes();
                 if (g == null || g.length == 0) continue;
 
-                String ext = "bin";
-                if (g.length >= 4 && (g[0] & 0xFF) == 0x89 && g[1] == 0x50 && g[2] == 0x4E && g[3] == 0x47) {
-                    ext = "png";
-                } else if (g.length >= 3 && (g[0] & 0xFF) == 0xFF && (g[1] & 0xFF) == 0xD8 && (g[2] & 0xFF) == 0xFF) {
-                    ext = "jpg";
-                }
+                String ext = graficos.get(i).getTipo().toLowerCase();
 
                 String name = String.format("pardini-%d-%s-%s-grafico%02d.%s", ano, pedido, stamp, i, ext);
                 Path p = outputDir.resolve(name);
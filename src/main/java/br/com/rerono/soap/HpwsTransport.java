@@ -0,0 +1,67 @@
+package br.com.rerono.soap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Transporte HTTP das chamadas SOAP ao HPWS.
+ *
+ * Implementações:
+ * - {@link HttpClientTransport}    -> java.net.http.HttpClient compartilhado (keep-alive, reaproveita TLS)
+ * - {@link UrlConnectionTransport} -> HttpURLConnection por chamada (comportamento antigo)
+ *
+ * Selecionado por pardini.soap.transport (httpclient | urlconnection).
+ */
+public interface HpwsTransport {
+
+    /**
+     * Recebe o corpo da resposta HTTP (sucesso ou erro - SOAP Fault costuma vir com 500) como stream.
+     */
+    @FunctionalInterface
+    interface RespostaHandler<T> {
+        T tratar(InputStream body) throws IOException;
+    }
+
+    /**
+     * Faz o POST do envelope SOAP e entrega o corpo da resposta ao handler.
+     * O stream é fechado pelo transporte depois que o handler retorna.
+     */
+    <T> T enviar(String endpoint, String soapAction, byte[] envelope, RespostaHandler<T> handler) throws IOException;
+
+    /**
+     * POST assíncrono: o corpo da resposta (sucesso ou erro) é gravado em {@code destino}.
+     *
+     * Padrão: roda a chamada bloqueante no executor. Transportes com I/O não bloqueante
+     * (HttpClient) sobrescrevem para não ocupar thread enquanto a resposta não chega.
+     */
+    default CompletableFuture<Path> enviarAsync(String endpoint, String soapAction, byte[] envelope,
+                                                Path destino, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return enviar(endpoint, soapAction, envelope, in -> {
+                    Files.copy(in, destino, StandardCopyOption.REPLACE_EXISTING);
+                    return destino;
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * @param totalTimeout prazo da chamada inteira no httpclient (no urlconnection o
+     *                     readTimeout já limita cada leitura do corpo)
+     */
+    static HpwsTransport criar(String tipo, int connectTimeout, int readTimeout, int totalTimeout) {
+        if ("urlconnection".equalsIgnoreCase(tipo)) {
+            return new UrlConnectionTransport(connectTimeout, readTimeout, null);
+        }
+        return HttpClientTransport.getInstance(connectTimeout, readTimeout, totalTimeout);
+    }
+}
@@ -0,0 +1,151 @@
+package br.com.rerono.soap;
+
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Benchmark local dos transportes HPWS contra um stub HTTPS (com.sun.net.httpserver).
+ *
+ * Mede a latência por chamada do transporte antigo (HttpURLConnection + disconnect)
+ * e do HttpClient compartilhado, ambos falando TLS com o mesmo servidor local.
+ * O keystore do stub é gerado na hora com o keytool do próprio JDK.
+ *
+ * Uso: java -jar rerono-pardini-api.jar --bench-transport [chamadas]
+ */
+public class HpwsTransportBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(HpwsTransportBenchmark.class);
+
+    private static final String SENHA = "changeit";
+    private static final int AQUECIMENTO = 5;
+
+    private static final byte[] RESPOSTA = """
+            <?xml version='1.0' encoding='UTF-8'?>
+            <SOAP-ENV:Envelope xmlns:SOAP-ENV='http://schemas.xmlsoap.org/soap/envelope/'>
+              <SOAP-ENV:Body><Resultado><CodigoRetorno>0</CodigoRetorno></Resultado></SOAP-ENV:Body>
+            </SOAP-ENV:Envelope>
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] ENVELOPE = """
+            <?xml version="1.0" encoding="utf-8"?>
+            <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/">
+              <soapenv:Body/>
+            </soapenv:Envelope>
+            """.getBytes(StandardCharsets.UTF_8);
+
+    public static void executar(int chamadas) throws Exception {
+        Path dir = Files.createTempDirectory("hpws-bench");
+        Path keystore = gerarKeystore(dir);
+        SSLContext ssl = criarSslContext(keystore);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        HttpsServer server = HttpsServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(ssl));
+        server.setExecutor(executor);
+        server.createContext("/b2b/HPWS.XMLServer.cls", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                in.readAllBytes();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=utf-8");
+            exchange.sendResponseHeaders(200, RESPOSTA.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(RESPOSTA);
+            }
+        });
+        server.start();
+
+        try {
+            String endpoint = "https://localhost:" + server.getAddress().getPort() + "/b2b/HPWS.XMLServer.cls";
+            logger.info("Stub HTTPS em {} | {} chamadas por transporte", endpoint, chamadas);
+
+            double antigo = medir("urlconnection", new UrlConnectionTransport(5000, 5000, ssl), endpoint, chamadas);
+            double novo = medir("httpclient", new HttpClientTransport(5000, 5000, ssl), endpoint, chamadas);
+
+            logger.info("Economia por chamada: {} ms ({}%)",
+                    String.format("%.3f", antigo - novo),
+                    String.format("%.1f", antigo > 0 ? (antigo - novo) * 100.0 / antigo : 0));
+        } finally {
+            server.stop(0);
+            executor.shutdownNow();
+            Files.deleteIfExists(keystore);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /**
+     * @return média em ms por chamada
+     */
+    private static double medir(String nome, HpwsTransport transport, String endpoint, int chamadas) throws IOException {
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            chamar(transport, endpoint);
+        }
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < chamadas; i++) {
+            chamar(transport, endpoint);
+        }
+        double mediaMs = (System.nanoTime() - inicio) / 1_000_000.0 / chamadas;
+
+        logger.info("{}: {} ms/chamada", nome, String.format("%.3f", mediaMs));
+        return mediaMs;
+    }
+
+    private static void chamar(HpwsTransport transport, String endpoint) throws IOException {
+        transport.enviar(endpoint, "bench", ENVELOPE, InputStream::readAllBytes);
+    }
+
+    private static Path gerarKeystore(Path dir) throws IOException, InterruptedException {
+        Path keystore = dir.resolve("stub.p12");
+        String keytool = Path.of(System.getProperty("java.home"), "bin", "keytool").toString();
+
+        Process p = new ProcessBuilder(keytool,
+                "-genkeypair", "-alias", "stub", "-keyalg", "RSA", "-keysize", "2048",
+                "-dname", "CN=localhost", "-ext", "san=dns:localhost,ip:127.0.0.1",
+                "-validity", "1", "-storetype", "PKCS12",
+                "-keystore", keystore.toString(), "-storepass", SENHA, "-keypass", SENHA)
+                .redirectErrorStream(true)
+                .start();
+        byte[] saida = p.getInputStream().readAllBytes();
+
+        if (p.waitFor() != 0) {
+            throw new IOException("keytool falhou: " + new String(saida, StandardCharsets.UTF_8));
+        }
+        return keystore;
+    }
+
+    /**
+     * Mesmo contexto para servidor (chave) e clientes (confiança no certificado do stub).
+     */
+    private static SSLContext criarSslContext(Path keystore) throws Exception {
+        KeyStore ks = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(keystore)) {
+            ks.load(in, SENHA.toCharArray());
+        }
+
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(ks, SENHA.toCharArray());
+
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(ks);
+
+        SSLContext ctx = SSLContext.getInstance("TLS");
+        ctx.init(kmf.getKeyManagers(), tmf.getTrustManagers(), null);
+        return ctx;
+    }
+}
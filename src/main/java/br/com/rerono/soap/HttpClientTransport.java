@@ -0,0 +1,193 @@
+package br.com.rerono.soap;
+
+import br.com.rerono.config.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Transporte baseado em um java.net.http.HttpClient compartilhado.
+ *
+ * As conexões ficam no pool do HttpClient (keep-alive), então a sessão TLS com
+ * hermespardini.com.br é reaproveitada entre chamadas em vez de refazer o handshake.
+ *
+ * Pool: jdk.httpclient.connectionPoolSize / jdk.httpclient.keepalive.timeout são
+ * propriedades de JVM lidas uma única vez; por isso são aplicadas antes de criar o
+ * primeiro HttpClient (a não ser que já tenham vindo via -D).
+ *
+ * Prazos: HttpRequest.timeout só limita a espera pelos cabeçalhos da resposta; o corpo
+ * (PDFs grandes, getResultado do período) tem um prazo total próprio, contado desde o
+ * envio. Estourado, a leitura é abortada e a chamada falha com HttpTimeoutException.
+ */
+public class HttpClientTransport implements HpwsTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientTransport.class);
+
+    private static final long TOTAL_TIMEOUT_PADRAO_MS = 300_000;
+
+    // um transporte (e um HttpClient/pool) por combinação de timeouts
+    private static final Map<String, HttpClientTransport> instancias = new ConcurrentHashMap<>();
+
+    // dispara os prazos totais das respostas
+    private static final ScheduledExecutorService prazos = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "HPWS-prazo");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+    private final long totalTimeoutMs;
+
+    public static HttpClientTransport getInstance(int connectTimeout, int readTimeout, int totalTimeout) {
+        return instancias.computeIfAbsent(connectTimeout + ":" + readTimeout + ":" + totalTimeout, k -> {
+            AppConfig config = AppConfig.getInstance();
+            configurarPool(config.getPardiniHttpPoolSize(), config.getPardiniHttpKeepAliveSeconds());
+            logger.info("HttpClient HPWS criado: pool={}, keepAlive={}s, connectTimeout={}ms, readTimeout={}ms, totalTimeout={}ms",
+                    config.getPardiniHttpPoolSize(), config.getPardiniHttpKeepAliveSeconds(),
+                    connectTimeout, readTimeout, totalTimeout);
+            return new HttpClientTransport(connectTimeout, readTimeout, totalTimeout, null);
+        });
+    }
+
+    /**
+     * @param sslContext null = padrão da JVM
+     */
+    public HttpClientTransport(int connectTimeout, int readTimeout, SSLContext sslContext) {
+        this(connectTimeout, readTimeout, TOTAL_TIMEOUT_PADRAO_MS, sslContext);
+    }
+
+    /**
+     * @param totalTimeout prazo da chamada inteira (envio + cabeçalhos + corpo), em ms
+     * @param sslContext   null = padrão da JVM
+     */
+    public HttpClientTransport(int connectTimeout, int readTimeout, long totalTimeout, SSLContext sslContext) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                // o XMLServer é HTTP/1.1; evita negociação h2
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeout));
+        if (sslContext != null) {
+            builder.sslContext(sslContext);
+        }
+        this.httpClient = builder.build();
+        this.readTimeout = Duration.ofMillis(readTimeout);
+        this.totalTimeoutMs = totalTimeout;
+    }
+
+    /**
+     * Aplica o tamanho do pool e o keep-alive, se não vieram por -D.
+     */
+    static void configurarPool(int poolSize, int keepAliveSeconds) {
+        if (System.getProperty("jdk.httpclient.connectionPoolSize") == null) {
+            System.setProperty("jdk.httpclient.connectionPoolSize", String.valueOf(poolSize));
+        }
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(keepAliveSeconds));
+        }
+    }
+
+    @Override
+    public <T> T enviar(String endpoint, String soapAction, byte[] envelope, RespostaHandler<T> handler) throws IOException {
+        HttpRequest request = criarRequest(endpoint, soapAction, envelope);
+        long inicio = System.nanoTime();
+
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Chamada HTTP interrompida", e);
+        }
+
+        int responseCode = response.statusCode();
+        logger.debug("HTTP Response Code: {}", responseCode);
+
+        // SOAP Fault vem com 500 e corpo: o handler decide (igual ao getErrorStream do transporte antigo)
+        InputStream in = response.body();
+
+        // corpo parado: fechar o stream cancela a assinatura e a leitura bloqueada retorna
+        AtomicBoolean estourou = new AtomicBoolean(false);
+        long restante = totalTimeoutMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        ScheduledFuture<?> prazo = prazos.schedule(() -> {
+            estourou.set(true);
+            try {
+                in.close();
+            } catch (IOException e) {
+                logger.debug("Erro ao fechar resposta HTTP após o prazo: {}", e.getMessage());
+            }
+        }, Math.max(0, restante), TimeUnit.MILLISECONDS);
+
+        try (in) {
+            T resultado = handler.tratar(in);
+            if (estourou.get()) throw prazoEstourado();
+            return resultado;
+        } catch (IOException e) {
+            if (estourou.get()) throw prazoEstourado();
+            throw e;
+        } finally {
+            prazo.cancel(false);
+        }
+    }
+
+    private HttpTimeoutException prazoEstourado() {
+        return new HttpTimeoutException("Resposta HPWS não concluída em " + totalTimeoutMs + "ms");
+    }
+
+    /**
+     * sendAsync com o corpo gravado direto no arquivo: nenhuma thread fica presa
+     * esperando o Pardini; o executor só é usado pelas etapas seguintes.
+     */
+    @Override
+    public CompletableFuture<Path> enviarAsync(String endpoint, String soapAction, byte[] envelope,
+                                               Path destino, Executor executor) {
+        HttpRequest request = criarRequest(endpoint, soapAction, envelope);
+
+        CompletableFuture<HttpResponse<Path>> envio = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofFile(destino,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+
+        CompletableFuture<Path> resposta = envio.thenApply(response -> {
+            logger.debug("HTTP Response Code: {}", response.statusCode());
+            return response.body();
+        });
+
+        // o future só completa com o corpo inteiro no arquivo: o prazo cobre o download todo
+        // e, estourado, cancela a troca (libera o slot de download e a conexão)
+        ScheduledFuture<?> prazo = prazos.schedule(() -> {
+            if (resposta.completeExceptionally(prazoEstourado())) {
+                envio.cancel(true);
+            }
+        }, totalTimeoutMs, TimeUnit.MILLISECONDS);
+        resposta.whenComplete((p, e) -> prazo.cancel(false));
+
+        return resposta;
+    }
+
+    HttpRequest criarRequest(String endpoint, String soapAction, byte[] envelope) {
+        return HttpRequest.newBuilder(URI.create(endpoint))
+                .timeout(readTimeout)
+                .header("Content-Type", "text/xml; charset=utf-8")
+                .header("SOAPAction", soapAction)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(envelope))
+                .build();
+    }
+}
@@ -0,0 +1,247 @@
+package br.com.rerono.soap;
+
+import br.com.rerono.model.ResultadoPardini;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Parser StAX (streaming) da resposta SOAP do getResultadoPedido.
+ *
+ * Lê direto do InputStream da conexão, sem montar o envelope inteiro em String:
+ * - detecta SOAP Fault (faultstring + detail/info)
+ * - entrega cada <PDF>/<Grafico> ao consumidor como Reader, à medida que o texto chega
+ * - captura CodigoRetorno / MensagemErro
+ *
+ * O pico de memória por requisição passa a ser o maior artefato, não o envelope.
+ * Tags comparadas sem diferenciar maiúsculas/minúsculas (igual ao parser antigo).
+ */
+public class ResultadoPedidoParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultadoPedidoParser.class);
+
+    // textos "pequenos" (fault, código, mensagem) nunca passam disso
+    private static final int MAX_TEXTO_CURTO = 4000;
+
+    /**
+     * Factory configurada uma única vez e nunca mais alterada;
+     * createXMLStreamReader pode ser chamado por várias threads.
+     */
+    private static final XMLInputFactory FACTORY = criarFactory();
+
+    public enum TipoArtefato { PDF, GRAFICO }
+
+    /**
+     * Recebe o conteúdo Base64 de cada tag <PDF>/<Grafico> como Reader:
+     * o texto vem direto dos eventos StAX, sem virar String.
+     * Retorna true se o artefato foi aceito (decodificado e guardado).
+     */
+    @FunctionalInterface
+    public interface ArtefatoConsumer {
+        boolean aceitar(TipoArtefato tipo, Reader base64) throws Exception;
+    }
+
+    private static XMLInputFactory criarFactory() {
+        XMLInputFactory f = XMLInputFactory.newInstance();
+        f.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        f.setProperty(XMLInputFactory.IS_COALESCING, false);
+        f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return f;
+    }
+
+    /**
+     * Faz o parse preenchendo o ResultadoPardini (sucesso, erro, código de retorno)
+     * e repassando os artefatos ao consumidor.
+     */
+    public void parse(InputStream in, ResultadoPardini resultado, ArtefatoConsumer consumer) {
+        XMLStreamReader reader = null;
+
+        boolean fault = false;
+        String faultString = null;
+        String faultDetail = null;
+        String codigoRetorno = null;
+        String mensagemErro = null;
+
+        int pdfValidos = 0;
+        int grafValidos = 0;
+
+        try {
+            reader = FACTORY.createXMLStreamReader(in);
+
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) continue;
+
+                String tag = reader.getLocalName();
+
+                if ("Fault".equalsIgnoreCase(tag)) {
+                    fault = true;
+
+                } else if ("PDF".equalsIgnoreCase(tag) || "Grafico".equalsIgnoreCase(tag)) {
+                    TipoArtefato tipo = "PDF".equalsIgnoreCase(tag) ? TipoArtefato.PDF : TipoArtefato.GRAFICO;
+                    ElementoTextoReader base64 = new ElementoTextoReader(reader);
+
+                    boolean aceito = consumer.aceitar(tipo, base64);
+                    base64.drenar();
+
+                    if (aceito) {
+                        if (tipo == TipoArtefato.PDF) pdfValidos++;
+                        else grafValidos++;
+                    }
+
+                } else if ("faultstring".equalsIgnoreCase(tag) && faultString == null) {
+                    faultString = lerTexto(reader, MAX_TEXTO_CURTO);
+
+                } else if ("info".equalsIgnoreCase(tag) && faultDetail == null) {
+                    faultDetail = lerTexto(reader, MAX_TEXTO_CURTO);
+
+                } else if ("CodigoRetorno".equalsIgnoreCase(tag) && codigoRetorno == null) {
+                    codigoRetorno = lerTexto(reader, MAX_TEXTO_CURTO);
+
+                } else if ("MensagemErro".equalsIgnoreCase(tag) && mensagemErro == null) {
+                    mensagemErro = lerTexto(reader, MAX_TEXTO_CURTO);
+                }
+            }
+
+            if (fault) {
+                String errorMsg = (faultString != null && !faultString.isBlank()) ? faultString : "SOAP Fault";
+                if (faultDetail != null && !faultDetail.isBlank()) {
+                    errorMsg += ": " + faultDetail;
+                }
+                resultado.setSucesso(false);
+                resultado.setMensagemErro(errorMsg);
+                logger.warn("SOAP Fault recebido: {}", errorMsg);
+                return;
+            }
+
+            resultado.setCodigoRetorno(codigoRetorno);
+
+            if (mensagemErro != null && !mensagemErro.isEmpty()) {
+                resultado.setMensagemErro(mensagemErro);
+            }
+
+            boolean sucesso = (pdfValidos > 0) || (grafValidos > 0) ||
+                    (mensagemErro == null || mensagemErro.isEmpty());
+
+            resultado.setSucesso(sucesso);
+
+        } catch (Exception e) {
+            logger.error("Erro ao parsear resposta SOAP (StAX): {}", e.getMessage(), e);
+            resultado.setSucesso(false);
+            resultado.setMensagemErro("Erro no parse: " + e.getMessage());
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // nada a fazer
+                }
+            }
+        }
+    }
+
+    /**
+     * Reader sobre o texto do elemento corrente: puxa os próximos eventos CHARACTERS
+     * do XMLStreamReader sob demanda e termina no END_ELEMENT correspondente.
+     */
+    private static final class ElementoTextoReader extends Reader {
+
+        private final XMLStreamReader reader;
+        private int nivel = 1;
+
+        private char[] buf;
+        private int pos;
+        private int fim;
+
+        ElementoTextoReader(XMLStreamReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) return 0;
+
+            while (pos >= fim) {
+                if (!proximoTrecho()) return -1;
+            }
+
+            int n = Math.min(len, fim - pos);
+            System.arraycopy(buf, pos, cbuf, off, n);
+            pos += n;
+            return n;
+        }
+
+        private boolean proximoTrecho() throws IOException {
+            try {
+                while (nivel > 0 && reader.hasNext()) {
+                    int evento = reader.next();
+                    switch (evento) {
+                        case XMLStreamConstants.START_ELEMENT -> nivel++;
+                        case XMLStreamConstants.END_ELEMENT -> nivel--;
+                        case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA,
+                             XMLStreamConstants.SPACE, XMLStreamConstants.ENTITY_REFERENCE -> {
+                            // o array do StAX é reutilizado no próximo evento: usamos antes de avançar
+                            buf = reader.getTextCharacters();
+                            pos = reader.getTextStart();
+                            fim = pos + reader.getTextLength();
+                            if (fim > pos) return true;
+                        }
+                        default -> { }
+                    }
+                }
+                return false;
+            } catch (XMLStreamException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Consome o que o consumidor não leu, deixando o parser após o END_ELEMENT.
+         */
+        void drenar() throws IOException {
+            pos = fim;
+            while (proximoTrecho()) {
+                pos = fim;
+            }
+        }
+
+        @Override
+        public void close() {
+            // quem fecha é o parser
+        }
+    }
+
+    /**
+     * Lê o texto do elemento corrente até o END_ELEMENT correspondente.
+     * Elementos filhos (se houver) contribuem com o próprio texto.
+     */
+    private String lerTexto(XMLStreamReader reader, int limite) throws XMLStreamException {
+        StringBuilder sb = new StringBuilder();
+        int nivel = 1;
+
+        while (nivel > 0 && reader.hasNext()) {
+            int evento = reader.next();
+            switch (evento) {
+                case XMLStreamConstants.START_ELEMENT -> nivel++;
+                case XMLStreamConstants.END_ELEMENT -> nivel--;
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA,
+                     XMLStreamConstants.SPACE, XMLStreamConstants.ENTITY_REFERENCE -> {
+                    if (sb.length() < limite) {
+                        sb.append(reader.getTextCharacters(), reader.getTextStart(),
+                                Math.min(reader.getTextLength(), limite - sb.length()));
+                    }
+                }
+                default -> { }
+            }
+        }
+
+        return sb.toString().trim();
+    }
+}
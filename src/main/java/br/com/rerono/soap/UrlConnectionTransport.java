@@ -0,0 +1,81 @@
+package br.com.rerono.soap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Transporte antigo: abre um HttpURLConnection por chamada e desconecta no final
+ * (cada chamada paga TCP + handshake TLS).
+ */
+public class UrlConnectionTransport implements HpwsTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(UrlConnectionTransport.class);
+
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final SSLContext sslContext;
+
+    /**
+     * @param sslContext null = padrão da JVM
+     */
+    public UrlConnectionTransport(int connectTimeout, int readTimeout, SSLContext sslContext) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.sslContext = sslContext;
+    }
+
+    @Override
+    public <T> T enviar(String endpoint, String soapAction, byte[] envelope, RespostaHandler<T> handler) throws IOException {
+        URL url = new URL(endpoint);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+        try {
+            if (sslContext != null && connection instanceof HttpsURLConnection https) {
+                https.setSSLSocketFactory(sslContext.getSocketFactory());
+            }
+
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setDoInput(true);
+            connection.setConnectTimeout(connectTimeout);
+            connection.setReadTimeout(readTimeout);
+
+            connection.setRequestProperty("Content-Type", "text/xml; charset=utf-8");
+            connection.setRequestProperty("SOAPAction", soapAction);
+            connection.setRequestProperty("Content-Length", String.valueOf(envelope.length));
+
+            try (OutputStream os = connection.getOutputStream()) {
+                os.write(envelope);
+                os.flush();
+            }
+
+            int responseCode = connection.getResponseCode();
+            logger.debug("HTTP Response Code: {}", responseCode);
+
+            InputStream inputStream;
+            if (responseCode >= 200 && responseCode < 300) {
+                inputStream = connection.getInputStream();
+            } else {
+                inputStream = connection.getErrorStream();
+                if (inputStream == null) {
+                    throw new IOException("HTTP Error: " + responseCode + " - " + connection.getResponseMessage());
+                }
+            }
+
+            try (InputStream in = inputStream) {
+                return handler.tratar(in);
+            }
+
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package br.com.rerono.worker;
+
+import br.com.rerono.config.AppConfig;
+import br.com.rerono.persistence.BackfillRepository;
+import br.com.rerono.persistence.PardiniMapaRepository;
+import br.com.rerono.persistence.PardiniMapaRepository.ResultadoUpsertMapa;
+import br.com.rerono.soap.HpwsClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Backfill do mapa CodPedLab -> CodPedApoio para um período longo
+ * (serviço parado, nova unidade): divide [de, ate) em fatias de
+ * pardini.backfill.slice.hours, busca até pardini.backfill.parallelism fatias
+ * ao mesmo tempo e passa cada resposta em streaming pelo upsert do mapa.
+ *
+ * Cada fatia é marcada em RERONO_BACKFILL_FATIA no mesmo commit do upsert;
+ * rodar de novo o mesmo comando pula as fatias concluídas.
+ * Um período que termina no futuro vai só até agora: a fatia cortada é gravada mas
+ * não marcada, e as seguintes ficam para quando o comando for repetido.
+ */
+public class BackfillMapaPardini {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackfillMapaPardini.class);
+
+    private static final DateTimeFormatter FMT_CHAVE = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+
+    private final HpwsClient hpwsClient;
+    private final PardiniMapaRepository mapaRepository;
+    private final BackfillRepository backfillRepository;
+
+    private final int horasPorFatia;
+    private final int paralelismo;
+
+    public BackfillMapaPardini() {
+        AppConfig config = AppConfig.getInstance();
+
+        this.hpwsClient = new HpwsClient();
+        this.mapaRepository = new PardiniMapaRepository();
+        this.backfillRepository = new BackfillRepository();
+
+        this.horasPorFatia = Math.max(1, config.getPardiniBackfillSliceHours());
+        this.paralelismo = Math.max(1, config.getPardiniBackfillParallelism());
+    }
+
+    /**
+     * @return true se todas as fatias foram concluídas (nesta ou em execuções anteriores)
+     */
+    public boolean executar(LocalDateTime de, LocalDateTime ate) throws SQLException, InterruptedException {
+        if (!de.isBefore(ate)) {
+            throw new IllegalArgumentException("Período inválido: " + de + " -> " + ate);
+        }
+
+        // a chave usa o período pedido (antes do corte em "agora") para a retomada achar as fatias
+        String chave = String.format("BACKFILL-%s-%s-%dh", de.format(FMT_CHAVE), ate.format(FMT_CHAVE), horasPorFatia);
+        Set<LocalDateTime> concluidas = backfillRepository.buscarFatiasConcluidas(chave);
+
+        LocalDateTime agora = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime limite = ate.isAfter(agora) ? agora : ate;
+
+        List<LocalDateTime[]> pendentes = new ArrayList<>();
+        int total = 0;
+        for (LocalDateTime ini = de; ini.isBefore(limite); ini = ini.plusHours(horasPorFatia)) {
+            total++;
+            if (concluidas.contains(ini)) continue;
+
+            LocalDateTime fim = ini.plusHours(horasPorFatia);
+            if (fim.isAfter(ate)) fim = ate;
+            pendentes.add(new LocalDateTime[]{ini, fim.isAfter(limite) ? limite : fim, fim});
+        }
+
+        logger.info("Backfill {}: {} fatias de {}h ({} já concluídas, {} pendentes), paralelismo={}",
+                chave, total, horasPorFatia, total - pendentes.size(), pendentes.size(), paralelismo);
+
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger falhas = new AtomicInteger();
+        AtomicInteger gravados = new AtomicInteger();
+
+        ExecutorService executor = WorkerExecutors.fixo(paralelismo, "Backfill");
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (LocalDateTime[] fatia : pendentes) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        // fatia cortada em "agora" não é marcada: a próxima execução a refaz inteira
+                        boolean marcar = !fatia[1].isBefore(fatia[2]);
+                        ResultadoUpsertMapa r = processarFatia(chave, fatia[0], fatia[1], marcar);
+                        gravados.addAndGet(r.getGravados());
+                        logger.info("Backfill fatia {} -> {}: {} ({}/{})",
+                                fatia[0], fatia[1], r, ok.incrementAndGet() + falhas.get(), pendentes.size());
+                    } catch (Exception e) {
+                        falhas.incrementAndGet();
+                        logger.error("Backfill fatia {} -> {} falhou (será refeita na próxima execução): {}",
+                                fatia[0], fatia[1], e.getMessage());
+                    }
+                }));
+            }
+
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (Exception e) {
+                    logger.error("Erro ao aguardar fatia do backfill: {}", e.getMessage());
+                }
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(60, TimeUnit.SECONDS);
+        }
+
+        logger.info("Backfill {} finalizado: {} fatias concluídas, {} falhas, {} linhas gravadas no mapa",
+                chave, ok.get(), falhas.get(), gravados.get());
+
+        return falhas.get() == 0;
+    }
+
+    private ResultadoUpsertMapa processarFatia(String chave, LocalDateTime ini, LocalDateTime fim, boolean marcar)
+            throws IOException {
+        // grafico=0: só o mapa interessa
+        return hpwsClient.getResultadoPeriodo(ini, fim, 0, in -> {
+            try {
+                return mapaRepository.atualizarMapaDeStream(in, !marcar ? null : (conn, r) ->
+                        backfillRepository.marcarConcluida(conn, chave, ini, fim, r.getGravados()));
+            } catch (SQLException e) {
+                throw new IOException("Erro ao gravar mapa Pardini: " + e.getMessage(), e);
+            }
+        });
+    }
+}
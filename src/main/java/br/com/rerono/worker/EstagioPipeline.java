@@ -0,0 +1,158 @@
+package br.com.rerono.worker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Um estágio do pipeline do worker: executor próprio + fila limitada de entrada.
+ *
+ * enviar(...) bloqueia quem chama quando o estágio está cheio (concorrência + fila),
+ * propagando a contrapressão para o estágio anterior. Os contadores mostram
+ * vazão, ocupação e quanto tempo o estágio anterior ficou esperando por vaga,
+ * o que aponta o gargalo do ciclo.
+ */
+final class EstagioPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(EstagioPipeline.class);
+
+    private final String nome;
+    private final ExecutorService executor;
+    private final int concorrencia;
+
+    // vagas = em execução + na fila; emExecucao limita também executors de virtual threads
+    private final Semaphore vagas;
+    private final Semaphore emExecucao;
+
+    private final AtomicLong concluidos = new AtomicLong();
+    private final AtomicLong erros = new AtomicLong();
+    private final AtomicLong ocupadoNanos = new AtomicLong();
+    private final AtomicLong esperaNanos = new AtomicLong();
+
+    EstagioPipeline(String nome, ExecutorService executor, int concorrencia, int capacidadeFila) {
+        this.nome = nome;
+        this.executor = executor;
+        this.concorrencia = concorrencia;
+        this.vagas = new Semaphore(concorrencia + capacidadeFila);
+        this.emExecucao = new Semaphore(concorrencia);
+    }
+
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Enfileira uma tarefa bloqueante; espera por vaga se o estágio estiver cheio.
+     * Exceções da tarefa são contadas e registradas (a tarefa deve tratar as suas).
+     */
+    void enviar(Runnable tarefa) throws InterruptedException {
+        aguardar(vagas);
+
+        try {
+            executor.execute(() -> {
+                long t0 = System.nanoTime();
+                boolean ok = false;
+                try {
+                    emExecucao.acquire();
+                    try {
+                        tarefa.run();
+                        ok = true;
+                    } finally {
+                        emExecucao.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    logger.error("Estágio {}: erro não tratado: {}", nome, e.getMessage(), e);
+                } finally {
+                    contabilizar(ok, t0);
+                    vagas.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            vagas.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Inicia uma operação assíncrona (ex.: download via HttpClient) ocupando uma vaga
+     * de execução até ela completar. A espera por vaga acontece em quem chama, nunca
+     * nas threads do executor (que precisam ficar livres para as continuações).
+     * O callback roda no executor do estágio, depois que a vaga foi liberada.
+     */
+    <T> void enviarAsync(Supplier<CompletableFuture<T>> operacao, BiConsumer<T, Throwable> aoConcluir)
+            throws InterruptedException {
+        aguardar(emExecucao);
+
+        long t0 = System.nanoTime();
+        CompletableFuture<T> f;
+        try {
+            f = operacao.get();
+        } catch (RuntimeException e) {
+            f = CompletableFuture.failedFuture(e);
+        }
+
+        f.whenCompleteAsync((r, e) -> {
+            emExecucao.release();
+            contabilizar(e == null, t0);
+            aoConcluir.accept(r, e);
+        }, executor);
+    }
+
+    private void aguardar(Semaphore semaforo) throws InterruptedException {
+        if (semaforo.tryAcquire()) return;
+
+        long t0 = System.nanoTime();
+        semaforo.acquire();
+        esperaNanos.addAndGet(System.nanoTime() - t0);
+    }
+
+    private void contabilizar(boolean ok, long t0) {
+        ocupadoNanos.addAndGet(System.nanoTime() - t0);
+        if (ok) concluidos.incrementAndGet();
+        else erros.incrementAndGet();
+    }
+
+    void zerarContadores() {
+        concluidos.set(0);
+        erros.set(0);
+        ocupadoNanos.set(0);
+        esperaNanos.set(0);
+    }
+
+    /**
+     * Resumo do ciclo: vazão (itens/s), ocupação média das vagas de execução e
+     * quanto o estágio anterior esperou para entregar itens (contrapressão).
+     */
+    void logarResumo(long duracaoCicloNanos) {
+        long total = concluidos.get() + erros.get();
+        double segundos = Math.max(duracaoCicloNanos, 1) / 1_000_000_000.0;
+        double ocupacao = ocupadoNanos.get() * 100.0 / (Math.max(duracaoCicloNanos, 1) * (double) concorrencia);
+
+        logger.info("Estágio {}: {} itens ({} erros), {}/s, ocupação {}% de {} vagas, espera de quem envia {} ms",
+                nome, total, erros.get(),
+                String.format("%.2f", total / segundos),
+                String.format("%.0f", ocupacao), concorrencia,
+                TimeUnit.NANOSECONDS.toMillis(esperaNanos.get()));
+    }
+
+    void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,21 +1,35 @@
 package br.com.rerono.worker;
 
-import br.com.rerono.codec.Base64Handler;
 import br.com.rerono.config.AppConfig;
+import br.com.rerono.config.DatabaseConfig;
+import br.com.rerono.model.AtendimentoPedLab;
+import br.com.rerono.model.DocumentoAnexo;
 import br.com.rerono.model.PedidoLabPendente;
 import br.com.rerono.model.ResultadoPardini;
 import br.com.rerono.mv2000.Mv2000Integrator;
+import br.com.rerono.persistence.AnoPedidoRepository;
+import br.com.rerono.persistence.BackoffRepository;
 import br.com.rerono.persistence.ItpedLabRepository;
+import br.com.rerono.persistence.LeaseRepository;
 import br.com.rerono.persistence.PardiniMapaRepository;
 import br.com.rerono.persistence.PardiniMapaRepository.MapeamentoPardini;
+import br.com.rerono.persistence.PardiniMapaRepository.ResultadoUpsertMapa;
+import br.com.rerono.persistence.WatermarkRepository;
 import br.com.rerono.soap.HpwsClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class IntegracaoWorker {
 
@@ -24,73 +38,168 @@ public class IntegracaoWorker {
 
     private final HpwsClient hpwsClient;
     private final PardiniMapaRepository mapaRepository;
+    private final WatermarkRepository watermarkRepository;
     private final ItpedLabRepository itpedLabRepository;
     private final Mv2000Integrator mv2000Integrator;
 
-    private final ExecutorService executorService;
     private final int batchSize;
 
+    // pipeline: resolução (DB) -> download (rede) -> anexo (DB), cada um com executor e fila próprios
+    private final EstagioPipeline resolucao;
+    private final EstagioPipeline download;
+    private final EstagioPipeline anexo;
+
+    // resolução e anexo disputam as mesmas conexões Hikari
+    private final Semaphore dbPermits;
+
+    // pedidos por commit no anexo (1 = um commit por pedido, sem agrupar)
+    private final int pedidosPorCommit;
+    private final LoteAnexo<AnexoPendente> loteAnexo;
+
     private final AtomicInteger processados = new AtomicInteger(0);
     private final AtomicInteger erros = new AtomicInteger(0);
+    private final AtomicInteger jaAnexados = new AtomicInteger(0);
+
+    // getResultado do mapa no máximo uma vez a cada N segundos (ciclos curtos do modo contínuo)
+    private final long mapaIntervaloMinimoNanos;
+    private volatile long ultimaAtualizacaoMapa;
+    // mapa atualizado por job próprio (scheduler.mapa.interval.minutes > 0): o ciclo só lê
+    private final boolean mapaAgendado;
+    // job do mapa e ciclo nunca chamam getResultado ao mesmo tempo
+    private final ReentrantLock mapaLock = new ReentrantLock();
+
+    // backoff (null = desligado): falhas "ainda não liberado" e pedidos anexados no ciclo,
+    // gravados em batch no fim do ciclo
+    private final BackoffRepository backoffRepository;
+    private final ConcurrentHashMap<String, String> adiados = new ConcurrentHashMap<>();
+    private final Set<String> liberados = ConcurrentHashMap.newKeySet();
+
+    // pedidos ainda no pipeline (inclusive os que passaram do timeout do ciclo): não são
+    // reenviados e seguem com lease até terminar; os que terminaram devolvem o lease
+    private final Set<String> emVoo = ConcurrentHashMap.newKeySet();
+    private final Set<String> leasesConcluidos = ConcurrentHashMap.newKeySet();
+
+    // leases entre instâncias (null = instância única): heartbeat renova enquanto o worker vive
+    private final LeaseRepository leaseRepository;
+    private final ScheduledExecutorService heartbeat;
 
     private final int tpDocLaudo;
     private final int tpDocGrafico;
 
+    // keyset dos pendentes: último CD_PED_LAB entregue (null = começar do início)
+    private final int fetchSizePendentes;
+    private final long orcamentoSegundos;
+    // true: só pendentes já no mapa Pardini, com CodPedApoio e atendimento no mesmo join
+    private final boolean somenteMapeados;
+    private volatile String cursorPendentes;
+
     private final int janelaHoras;
+    private final boolean incremental;
+    private final int overlapMinutos;
     private final int anoDefault;
     private final int anoFallbackYears;
+    private final boolean sondaAno;
+    private final ResolvedorAnoPedido resolvedorAno;
 
     public IntegracaoWorker() {
         AppConfig config = AppConfig.getInstance();
 
         this.hpwsClient = new HpwsClient();
         this.mapaRepository = new PardiniMapaRepository();
+        this.watermarkRepository = new WatermarkRepository();
+        this.backoffRepository = BackoffRepository.isHabilitado() ? new BackoffRepository() : null;
+        this.leaseRepository = config.isWorkerLease()
+                ? new LeaseRepository(config.getWorkerNodeId(), config.getWorkerLeaseSeconds())
+                : null;
+        this.heartbeat = leaseRepository != null ? iniciarHeartbeat(config.getWorkerLeaseSeconds()) : null;
         this.itpedLabRepository = new ItpedLabRepository();
         this.mv2000Integrator = new Mv2000Integrator();
 
         this.batchSize = config.getWorkerBatchSize();
+        this.fetchSizePendentes = config.getWorkerPendentesFetchSize();
+        this.orcamentoSegundos = config.getWorkerCicloOrcamentoSegundos();
+        this.somenteMapeados = "mapa".equals(config.getWorkerPendentesModo());
         this.tpDocLaudo = config.getMv2000TipoDocumentoLaudo();
         this.tpDocGrafico = config.getMv2000TipoDocumentoGrafico();
 
         this.janelaHoras = Integer.parseInt(config.getProperty("pardini.getResultado.window.hours", "24"));
+        this.incremental = "incremental".equals(config.getPardiniGetResultadoModo())
+                && DatabaseConfig.getInstance().tabelaOpcional(WatermarkRepository.TABELA,
+                        "pardini.getResultado.modo=incremental (scripts/03)", "usando modo janela");
+        this.overlapMinutos = config.getPardiniGetResultadoOverlapMinutes();
+        this.mapaIntervaloMinimoNanos = TimeUnit.SECONDS.toNanos(config.getPardiniMapaRefreshMinSeconds());
+        this.mapaAgendado = config.getSchedulerMapaIntervalMinutes() > 0;
         this.anoDefault = config.getPardiniAnoCodPedApoioDefault();
         this.anoFallbackYears = config.getPardiniAnoCodPedApoioFallbackYears();
+        this.sondaAno = config.isPardiniAnoSonda();
+        this.resolvedorAno = new ResolvedorAnoPedido(new AnoPedidoRepository(),
+                anoDefault, anoFallbackYears, config.getPardiniAnoVizinhoDistancia());
+        resolvedorAno.carregar();
+
+        String tipoExecutor = config.getWorkerExecutor();
+        int fila = config.getWorkerStageQueueCapacity();
+
+        int threadsResolucao = config.getWorkerStageResolverThreads();
+        int threadsDownload = config.getWorkerStageDownloadThreads();
+        int threadsAnexo = config.getWorkerStageAnexoThreads();
+        int downloadsEmVoo = config.getPardiniMaxConcurrent();
+
+        this.resolucao = new EstagioPipeline("resolucao",
+                WorkerExecutors.criar(tipoExecutor, threadsResolucao, "Worker-resolucao"), threadsResolucao, fila);
+        // no download a concorrência é o número de chamadas em voo; as threads só decodificam
+        this.download = new EstagioPipeline("download",
+                WorkerExecutors.criar(tipoExecutor, threadsDownload, "Worker-download"), downloadsEmVoo, fila);
+        this.anexo = new EstagioPipeline("anexo",
+                WorkerExecutors.criar(tipoExecutor, threadsAnexo, "Worker-anexo"), threadsAnexo, fila);
+        this.dbPermits = new Semaphore(config.getWorkerDbMaxConcurrent());
+        this.pedidosPorCommit = config.getWorkerAnexoPedidosPorCommit();
+        this.loteAnexo = new LoteAnexo<>(pedidosPorCommit, this::descarregarLoteAnexo);
 
-        int poolSize = config.getWorkerThreadPoolSize();
-        this.executorService = Executors.newFixedThreadPool(poolSize, r -> {
-            Thread t = new Thread(r, "IntegracaoWorker-" + System.currentTimeMillis());
-            t.setDaemon(true);
-            return t;
-        });
+        try {
+            mapaRepository.aquecerCache();
+        } catch (Exception e) {
+            logger.warn("Falha ao aquecer cache do mapa Pardini (segue consultando o banco): {}", e.getMessage());
+        }
+
+        try {
+            mv2000Integrator.carregarIndiceAnexos();
+        } catch (Exception e) {
+            logger.warn("Falha ao carregar índice de anexos por hash (segue consultando o banco): {}", e.getMessage());
+        }
 
-        logger.info("Worker inicializado: poolSize={}, batchSize={}, janelaGetResultado={}h, anoDefault={}, fallbackYears={}",
-                poolSize, batchSize, janelaHoras, anoDefault, anoFallbackYears);
+        logger.info("getResultado do mapa: modo={}, janela={}h, overlap={}min",
+                incremental ? "incremental" : "janela", janelaHoras, overlapMinutos);
+        logger.info("Worker inicializado: executor={}, resolucao={}, download={} em voo ({} threads), anexo={} ({} pedidos/commit), fila={}, maxDb={}, batchSize={}, janelaGetResultado={}h, anoDefault={}, fallbackYears={}",
+                tipoExecutor, threadsResolucao, downloadsEmVoo, threadsDownload, threadsAnexo, pedidosPorCommit, fila,
+                config.getWorkerDbMaxConcurrent(), batchSize, janelaHoras, anoDefault, anoFallbackYears);
     }
 
     public int executarCiclo() {
         logger.info("Iniciando ciclo (ITPED_LAB SN_ASSINADO='N' via CD_PED_LAB + validação getResultado)...");
         processados.set(0);
         erros.set(0);
+        jaAnexados.set(0);
 
         try {
-            // 1) Atualiza mapa (CodPedLab -> CodPedApoio) via getResultado
-            atualizarMapaPardini();
-
-            // 2) Busca CD_PED_LAB pendentes no MV2000
-            List<PedidoLabPendente> pendentes = itpedLabRepository.buscarPendentesAssinatura(batchSize);
-            if (pendentes.isEmpty()) {
-                logger.info("Nenhum CD_PED_LAB pendente (SN_ASSINADO='N')");
-                return 0;
+            // 1) Atualiza mapa (CodPedLab -> CodPedApoio) via getResultado,
+            //    a não ser que um job próprio cuide disso (o ciclo lê a tabela/cache)
+            if (!mapaAgendado) {
+                atualizarMapaNoCiclo();
             }
 
-            logger.info("Encontrados {} CD_PED_LAB pendentes", pendentes.size());
+            resolucao.zerarContadores();
+            download.zerarContadores();
+            anexo.zerarContadores();
+            long t0 = System.nanoTime();
 
-            List<Future<Boolean>> futures = new java.util.ArrayList<>();
-            for (PedidoLabPendente p : pendentes) {
-                futures.add(executorService.submit(() -> processarCdPedLab(p)));
+            // 2) Percorre os pendentes do MV2000 em páginas (keyset) até acabar o orçamento do ciclo
+            List<CompletableFuture<Boolean>> futures = drenarPendentes(t0 + TimeUnit.SECONDS.toNanos(orcamentoSegundos));
+            if (futures.isEmpty()) {
+                logger.info("Nenhum CD_PED_LAB pendente (SN_ASSINADO='N')");
+                return 0;
             }
 
-            for (Future<Boolean> f : futures) {
+            for (CompletableFuture<Boolean> f : futures) {
                 try {
                     f.get(10, TimeUnit.MINUTES);
                 } catch (TimeoutException e) {
@@ -100,156 +209,717 @@ public class IntegracaoWorker {
                     logger.error("Erro ao aguardar processamento: {}", e.getMessage());
                 }
             }
+            loteAnexo.descarregarRestante();
+
+            long duracao = System.nanoTime() - t0;
+            resolucao.logarResumo(duracao);
+            download.logarResumo(duracao);
+            anexo.logarResumo(duracao);
+
+            resolvedorAno.persistir();
+            persistirBackoff();
 
-            logger.info("Ciclo concluído: {} processados, {} erros", processados.get(), erros.get());
+            logger.info("Cache do mapa Pardini: {}", mapaRepository.getEstatisticasCache());
+            logger.info("Ano do CodPedApoio: {}", resolvedorAno.getEstatisticas());
+            logger.info("Ciclo concluído: {} processados, {} já anexados, {} erros",
+                    processados.get(), jaAnexados.get(), erros.get());
             return processados.get();
 
         } catch (Exception e) {
             logger.error("Erro no ciclo: {}", e.getMessage(), e);
             return 0;
+        } finally {
+            liberarLeases();
+        }
+    }
+
+    /**
+     * Sem a RERONO_WATERMARK (script 03) o modo incremental não consegue ler nem avançar
+     * a marca; cai para a janela em vez de deixar o mapa sem atualização.
+     */
+    private ScheduledExecutorService iniciarHeartbeat(int leaseSegundos) {
+        ScheduledExecutorService s = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Worker-lease");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(10, leaseSegundos / 3);
+        s.scheduleWithFixedDelay(() -> {
+            try {
+                int n = leaseRepository.renovar();
+                if (n > 0) logger.debug("Heartbeat: {} leases renovados ({})", n, leaseRepository.getNo());
+            } catch (Exception e) {
+                logger.warn("Falha ao renovar leases de {}: {}", leaseRepository.getNo(), e.getMessage());
+            }
+        }, periodo, periodo, TimeUnit.SECONDS);
+
+        logger.info("Leases ativos: nó={}, lease={}s, heartbeat={}s", leaseRepository.getNo(), leaseSegundos, periodo);
+        return s;
+    }
+
+    /**
+     * Fica só com os pedidos da página que este nó conseguiu reivindicar. Sem conseguir
+     * falar com a tabela de leases, a página é pulada: outra instância pode estar nela.
+     */
+    private List<PedidoLabPendente> reivindicar(List<PedidoLabPendente> pagina) {
+        if (leaseRepository == null) return pagina;
+
+        List<String> cdPedLabs = new ArrayList<>(pagina.size());
+        for (PedidoLabPendente p : pagina) {
+            cdPedLabs.add(p.getCdPedLab());
+        }
+
+        try {
+            Set<String> nossos = leaseRepository.reivindicar(cdPedLabs);
+            List<PedidoLabPendente> out = new ArrayList<>(nossos.size());
+            for (PedidoLabPendente p : pagina) {
+                if (nossos.contains(p.getCdPedLab())) out.add(p);
+            }
+            if (out.size() < pagina.size()) {
+                logger.info("Leases: {} de {} pedidos da página com outras instâncias", pagina.size() - out.size(), pagina.size());
+            }
+            return out;
+        } catch (SQLException e) {
+            logger.error("Falha ao reivindicar pedidos (página ignorada): {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Fim do ciclo: devolve só os leases dos pedidos que saíram do pipeline. Um pedido que
+     * estourou o timeout continua em andamento e com lease (renovado pelo heartbeat);
+     * liberado agora, outro nó poderia anexá-lo de novo.
+     */
+    private void liberarLeases() {
+        if (leaseRepository == null) return;
+
+        List<String> concluidos = new ArrayList<>(leasesConcluidos);
+        try {
+            leaseRepository.liberar(concluidos);
+            leasesConcluidos.removeAll(concluidos);
+            if (!emVoo.isEmpty()) {
+                logger.info("Leases: {} pedidos ainda em processamento seguem reservados", emVoo.size());
+            }
+        } catch (SQLException e) {
+            logger.warn("Falha ao liberar leases de {} (vencem sozinhos): {}", leaseRepository.getNo(), e.getMessage());
+        }
+    }
+
+    private void liberarTodosLeases() {
+        try {
+            leaseRepository.liberarTodos();
+        } catch (SQLException e) {
+            logger.warn("Falha ao liberar leases de {} (vencem sozinhos): {}", leaseRepository.getNo(), e.getMessage());
+        }
+    }
+
+    /**
+     * Busca páginas de pendentes (CD_PED_LAB > último visto) e as entrega ao pipeline,
+     * sem esperar uma página terminar para buscar a próxima: a contrapressão do
+     * pipeline regula o ritmo. Para no fim dos pendentes ou quando o prazo vence;
+     * nesse caso o próximo ciclo continua de onde este parou, e não do começo.
+     */
+    private List<CompletableFuture<Boolean>> drenarPendentes(long prazoNanos) throws InterruptedException {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        int paginas = 0;
+
+        while (true) {
+            List<PedidoLabPendente> pagina;
+            try {
+                pagina = somenteMapeados
+                        ? itpedLabRepository.buscarPendentesAcionaveis(cursorPendentes, batchSize, fetchSizePendentes)
+                        : itpedLabRepository.buscarPendentesAssinatura(cursorPendentes, batchSize, fetchSizePendentes);
+            } catch (SQLException e) {
+                logger.error("Erro ao buscar pendentes após CD_PED_LAB={}: {}", cursorPendentes, e.getMessage());
+                break;
+            }
+
+            if (pagina.isEmpty()) {
+                // chegou ao fim: o próximo ciclo recomeça do início
+                if (cursorPendentes != null && paginas == 0) {
+                    cursorPendentes = null;
+                    continue;
+                }
+                cursorPendentes = null;
+                break;
+            }
+
+            paginas++;
+            logger.info("Página {}: {} CD_PED_LAB pendentes", paginas, pagina.size());
+
+            // o keyset avança pela página inteira; só os reivindicados são processados aqui
+            String ultimoDaPagina = pagina.get(pagina.size() - 1).getCdPedLab();
+            boolean paginaCheia = pagina.size() >= batchSize;
+            pagina = reivindicar(foraDoPipeline(pagina));
+
+            // Atendimento/paciente da página: já vieram no join ou em uma consulta (null = resolver por pedido)
+            Map<String, AtendimentoPedLab> atendimentos = somenteMapeados
+                    ? atendimentosDaPagina(pagina)
+                    : resolverAtendimentosEmLote(pagina);
+
+            loteAnexo.prever(pagina.size());
+
+            // enviar() bloqueia quando a resolução está cheia: contrapressão até aqui
+            for (PedidoLabPendente p : pagina) {
+                futures.add(processarCdPedLab(p, atendimentos));
+            }
+
+            cursorPendentes = ultimoDaPagina;
+
+            if (!paginaCheia) {
+                cursorPendentes = null;
+                break;
+            }
+            if (System.nanoTime() - prazoNanos >= 0) {
+                logger.info("Orçamento do ciclo ({}s) esgotado; próximo ciclo continua após CD_PED_LAB={}",
+                        orcamentoSegundos, cursorPendentes);
+                break;
+            }
+        }
+
+        logger.info("Pendentes do ciclo: {} em {} página(s)", futures.size(), paginas);
+        return futures;
+    }
+
+    /** Pedidos de um ciclo anterior que ainda não terminaram não entram de novo. */
+    private List<PedidoLabPendente> foraDoPipeline(List<PedidoLabPendente> pagina) {
+        if (emVoo.isEmpty()) return pagina;
+
+        List<PedidoLabPendente> out = new ArrayList<>(pagina.size());
+        for (PedidoLabPendente p : pagina) {
+            if (!emVoo.contains(p.getCdPedLab())) out.add(p);
+        }
+        return out;
+    }
+
+    private static Map<String, AtendimentoPedLab> atendimentosDaPagina(List<PedidoLabPendente> pagina) {
+        Map<String, AtendimentoPedLab> atendimentos = new HashMap<>();
+        for (PedidoLabPendente p : pagina) {
+            if (p.getAtendimento() != null) {
+                atendimentos.put(p.getCdPedLab().trim(), p.getAtendimento());
+            }
+        }
+        return atendimentos;
+    }
+
+    /**
+     * Pedido ainda não liberado pelo Pardini (sem mapeamento ou sem laudo):
+     * entra/avança no backoff no fim do ciclo.
+     */
+    private void adiar(String cdPedLab, String motivo) {
+        if (backoffRepository != null) {
+            adiados.put(cdPedLab, motivo);
+        }
+    }
+
+    private void persistirBackoff() {
+        if (backoffRepository == null) return;
+
+        Map<String, String> falhas = new HashMap<>(adiados);
+        List<String> ok = new ArrayList<>(liberados);
+        adiados.keySet().removeAll(falhas.keySet());
+        liberados.removeAll(ok);
+
+        try {
+            backoffRepository.registrarFalhas(falhas);
+            backoffRepository.limpar(ok);
+            if (!falhas.isEmpty()) {
+                logger.info("Backoff: {} pedidos adiados, {} liberados", falhas.size(), ok.size());
+            }
+        } catch (SQLException e) {
+            logger.warn("Falha ao gravar backoff de pendentes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Uma consulta ITPED_LAB + ATENDIME para o lote inteiro. Se falhar, devolve null
+     * e cada pedido volta a ser resolvido individualmente na etapa de resolução.
+     */
+    private Map<String, AtendimentoPedLab> resolverAtendimentosEmLote(List<PedidoLabPendente> pendentes) {
+        List<String> cdPedLabs = new ArrayList<>(pendentes.size());
+        for (PedidoLabPendente p : pendentes) {
+            cdPedLabs.add(p.getCdPedLab());
+        }
+
+        try {
+            long t0 = System.nanoTime();
+            Map<String, AtendimentoPedLab> atendimentos = comPermissao(dbPermits,
+                    () -> mv2000Integrator.resolverAtendimentos(cdPedLabs));
+            logger.info("Atendimentos resolvidos em lote: {} de {} em {} ms",
+                    atendimentos.size(), pendentes.size(), (System.nanoTime() - t0) / 1_000_000);
+            return atendimentos;
+        } catch (Exception e) {
+            logger.warn("Falha ao resolver atendimentos em lote (resolvendo por pedido): {}", e.getMessage());
+            return null;
         }
     }
 
-    private void atualizarMapaPardini() {
+    private void atualizarMapaNoCiclo() {
+        long agora = System.nanoTime();
+        if (ultimaAtualizacaoMapa != 0 && agora - ultimaAtualizacaoMapa < mapaIntervaloMinimoNanos) {
+            logger.debug("Mapa Pardini atualizado há menos de {}s; getResultado fica para o próximo ciclo",
+                    TimeUnit.NANOSECONDS.toSeconds(mapaIntervaloMinimoNanos));
+            return;
+        }
+        atualizarMapaPardini();
+    }
+
+    /**
+     * Atualiza o mapa CodPedLab -> CodPedApoio com um getResultado do período.
+     * Chamado pelo ciclo ou pelo job próprio do mapa; se já houver uma atualização
+     * em andamento, retorna sem chamar o Pardini de novo.
+     */
+    public void atualizarMapaPardini() {
+        if (!mapaLock.tryLock()) {
+            logger.info("Atualização do mapa Pardini já em andamento; ignorando");
+            return;
+        }
+        ultimaAtualizacaoMapa = System.nanoTime();
+
         try {
             LocalDateTime fim = LocalDateTime.now();              // SYSDATE equivalente
+
+            if (incremental) {
+                atualizarMapaPardiniIncremental(fim);
+                return;
+            }
+
             LocalDateTime inicio = fim.minusHours(janelaHoras);
 
             logger.info("Chamando getResultado ({}h): {} -> {}", janelaHoras, inicio, fim);
 
-            // grafico=0 (não precisamos de gráficos aqui; só do mapa)
-            String xml = hpwsClient.getResultadoPeriodo(inicio, fim, 0);
-
-            int upserts = mapaRepository.atualizarMapaDeXml(xml);
-            logger.info("Mapa Pardini atualizado (CodPedLab->CodPedApoio): {} upserts", upserts);
+            ResultadoUpsertMapa r = atualizarMapaDoPeriodo(inicio, fim, null);
+            logger.info("Mapa Pardini atualizado (CodPedLab->CodPedApoio): {}", r);
 
         } catch (Exception e) {
             logger.warn("Falha ao atualizar mapa Pardini: {}", e.getMessage());
+        } finally {
+            mapaLock.unlock();
+        }
+    }
+
+    /**
+     * Modo incremental: pede só [watermark - overlap, agora] e avança o watermark para
+     * "agora" na mesma transação do upsert do mapa. Se a chamada ou o upsert falhar,
+     * o watermark fica onde estava e o próximo ciclo cobre o mesmo período.
+     */
+    private void atualizarMapaPardiniIncremental(LocalDateTime fim) throws Exception {
+        LocalDateTime watermark = watermarkRepository.buscar(WatermarkRepository.MAPA_PARDINI);
+
+        LocalDateTime inicio = watermark != null
+                ? watermark.minusMinutes(overlapMinutos)
+                : fim.minusHours(janelaHoras);                // primeira execução: janela cheia
+
+        if (inicio.isAfter(fim)) {
+            inicio = fim.minusMinutes(overlapMinutos);
+        }
+
+        logger.info("Chamando getResultado incremental (watermark={}): {} -> {}", watermark, inicio, fim);
+
+        try {
+            ResultadoUpsertMapa r = atualizarMapaDoPeriodo(inicio, fim, WatermarkRepository.MAPA_PARDINI);
+            logger.info("Mapa Pardini atualizado (incremental): {}; watermark -> {}", r, fim);
+        } catch (Exception e) {
+            logger.warn("getResultado incremental sem resposta utilizável ({}); watermark mantido em {}",
+                    e.getMessage(), watermark);
         }
     }
 
-    private boolean processarCdPedLab(PedidoLabPendente it) {
+    /**
+     * getResultado do período em streaming direto para o upsert do mapa
+     * (e o watermark, se informado, no mesmo commit).
+     */
+    private ResultadoUpsertMapa atualizarMapaDoPeriodo(LocalDateTime inicio, LocalDateTime fim, String chaveWatermark)
+            throws Exception {
+        // grafico=0 (não precisamos de gráficos aqui; só do mapa)
+        return hpwsClient.getResultadoPeriodo(inicio, fim, 0, in -> {
+            try {
+                return mapaRepository.atualizarMapaDeStream(in, chaveWatermark, fim);
+            } catch (SQLException e) {
+                throw new IOException("Erro ao gravar mapa Pardini: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Entrega o CD_PED_LAB ao pipeline. Cada estágio, ao terminar, envia o item ao
+     * próximo (bloqueando se ele estiver cheio); o future completa no fim do anexo,
+     * quando o item é descartado ou quando algum estágio falha.
+     */
+    private CompletableFuture<Boolean> processarCdPedLab(PedidoLabPendente it,
+                                                         Map<String, AtendimentoPedLab> atendimentos)
+            throws InterruptedException {
         String cdPedLab = it.getCdPedLab();
+        CompletableFuture<Boolean> fim = new CompletableFuture<>();
+
+        emVoo.add(cdPedLab);
+        fim.whenComplete((ok, erro) -> {
+            emVoo.remove(cdPedLab);
+            if (leaseRepository != null) leasesConcluidos.add(cdPedLab);
+        });
+
+        try {
+            resolucao.enviar(() -> {
+                try {
+                    PedidoEmProcessamento p = comPermissao(dbPermits, () -> resolver(it, atendimentos));
+                    if (p == null) {
+                        fim.complete(foraDoAnexo(false));
+                        return;
+                    }
+                    enviarParaDownload(p, fim);
+                } catch (Exception e) {
+                    fim.complete(foraDoAnexo(registrarErro(cdPedLab, e)));
+                }
+            });
+        } catch (InterruptedException e) {
+            // nem entrou no pipeline: sai do emVoo e devolve o lease
+            fim.complete(foraDoAnexo(false));
+            throw e;
+        }
 
+        // cópia: o cancel do timeout do ciclo não marca o pedido como concluído
+        return fim.copy();
+    }
+
+    private void enviarParaDownload(PedidoEmProcessamento p, CompletableFuture<Boolean> fim) throws InterruptedException {
+        download.enviarAsync(
+                () -> baixarResultadoPedidoComFallbackAnoAsync(p.getCodPedApoio()),
+                (resultado, erro) -> {
+                    if (erro != null) {
+                        fim.complete(foraDoAnexo(registrarErro(p.getCdPedLab(), causa(erro))));
+                        return;
+                    }
+                    try {
+                        enviarParaAnexo(p.comResultado(resultado), fim);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        fim.complete(foraDoAnexo(registrarErro(p.getCdPedLab(), e)));
+                    }
+                });
+    }
+
+    private void enviarParaAnexo(PedidoEmProcessamento p, CompletableFuture<Boolean> fim) throws InterruptedException {
+        if (pedidosPorCommit > 1) {
+            loteAnexo.adicionar(new AnexoPendente(p, fim));
+            return;
+        }
+
+        anexo.enviar(() -> {
+            try {
+                fim.complete(comPermissao(dbPermits, () -> anexar(p)));
+            } catch (Exception e) {
+                fim.complete(registrarErro(p.getCdPedLab(), e));
+            }
+        });
+    }
+
+    /**
+     * Lote pronto: vira uma única tarefa do estágio de anexo (um commit para todos).
+     */
+    private void descarregarLoteAnexo(List<AnexoPendente> lote) {
         try {
-            if (isBlank(cdPedLab)) {
-                logger.warn("Registro ITPED_LAB sem CD_PED_LAB (ignorando)");
-                return false;
+            anexo.enviar(() -> anexarLote(lote));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (AnexoPendente a : lote) {
+                a.fim.complete(registrarErro(a.pedido.getCdPedLab(), e));
             }
+        }
+    }
+
+    /** Item terminou antes do anexo: avisa o lote para não esperar por ele. */
+    private boolean foraDoAnexo(boolean resultado) {
+        if (pedidosPorCommit > 1) {
+            loteAnexo.descartar();
+        }
+        return resultado;
+    }
+
+    private <T> T comPermissao(Semaphore permits, Callable<T> tarefa) throws Exception {
+        permits.acquire();
+        try {
+            return tarefa.call();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static Throwable causa(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * Etapa 1 (DB): mapa CodPedLab -> CodPedApoio e atendimento/paciente no MV2000.
+     * Com o lote já resolvido ({@code atendimentos} != null) não há consulta ao MV2000 aqui.
+     *
+     * @return null quando o pedido ainda não apareceu no getResultado (tenta no próximo ciclo)
+     */
+    private PedidoEmProcessamento resolver(PedidoLabPendente it, Map<String, AtendimentoPedLab> atendimentos)
+            throws Exception {
+        String cdPedLab = it.getCdPedLab();
+
+        if (isBlank(cdPedLab)) {
+            logger.warn("Registro ITPED_LAB sem CD_PED_LAB (ignorando)");
+            return null;
+        }
 
-            // 1) Validar “com o XML”: se não está no mapa, não apareceu no getResultado do período
+        // 1) Validar “com o XML”: se não está no mapa, não apareceu no getResultado do período
+        //    (no modo join o CodPedApoio já veio com o pendente)
+        String codPedApoio = it.getCodPedApoio();
+        if (isBlank(codPedApoio)) {
             MapeamentoPardini mp = mapaRepository.buscarPorCodPedLab(cdPedLab);
             if (mp == null || isBlank(mp.getCodPedApoio())) {
                 logger.info("Não apareceu no getResultado (ainda): CD_PED_LAB={} (vai tentar no próximo ciclo)", cdPedLab);
-                return false;
+                adiar(cdPedLab, "Sem mapeamento no getResultado");
+                return null;
             }
+            codPedApoio = mp.getCodPedApoio();
+        }
 
-            String codPedApoio = mp.getCodPedApoio();
-
-            // 2) Descobrir atendimento/paciente a partir do CD_PED_LAB (MV2000)
-            Long cdAtendimento = mv2000Integrator.obterAtendimentoPorCdPedLab(cdPedLab);
-            if (cdAtendimento == null) {
+        // 2) Descobrir atendimento/paciente a partir do CD_PED_LAB (MV2000)
+        if (atendimentos != null) {
+            AtendimentoPedLab a = atendimentos.get(cdPedLab.trim());
+            if (a == null) {
                 throw new Exception("Não foi possível encontrar CD_ATENDIMENTO para CD_PED_LAB=" + cdPedLab);
             }
-
-            if (!mv2000Integrator.atendimentoExiste(cdAtendimento)) {
-                throw new Exception("Atendimento " + cdAtendimento + " não existe no MV2000");
+            if (!a.isAtendimentoExiste()) {
+                throw new Exception("Atendimento " + a.getCdAtendimento() + " não existe no MV2000");
             }
+            return new PedidoEmProcessamento(cdPedLab, codPedApoio, a.getCdAtendimento(), a.getCdPaciente());
+        }
 
-            Long cdPaciente = mv2000Integrator.obterPacienteDoAtendimento(cdAtendimento);
+        Long cdAtendimento = mv2000Integrator.obterAtendimentoPorCdPedLab(cdPedLab);
+        if (cdAtendimento == null) {
+            throw new Exception("Não foi possível encontrar CD_ATENDIMENTO para CD_PED_LAB=" + cdPedLab);
+        }
 
-            // 3) Baixar PDF via getResultadoPedido tentando ano default + fallback
-            ResultadoPardini resultado = baixarResultadoPedidoComFallbackAno(codPedApoio);
-            if (resultado == null) {
-                throw new Exception("Não foi possível baixar PDF para CodPedApoio=" + codPedApoio + " (ano default + fallback falharam)");
-            }
+        if (!mv2000Integrator.atendimentoExiste(cdAtendimento)) {
+            throw new Exception("Atendimento " + cdAtendimento + " não existe no MV2000");
+        }
 
-            if (!resultado.isSucesso()) {
-                throw new Exception("Pardini retornou erro: " + resultado.getMensagemErro());
-            }
+        Long cdPaciente = mv2000Integrator.obterPacienteDoAtendimento(cdAtendimento);
+
+        return new PedidoEmProcessamento(cdPedLab, codPedApoio, cdAtendimento, cdPaciente);
+    }
+
+    /**
+     * Etapa 3 (DB): anexa PDF/gráfico baixados ao atendimento no MV2000.
+     */
+    private boolean anexar(PedidoEmProcessamento p) throws Exception {
+        List<DocumentoAnexo> documentos = documentosDoPedido(p);
+        mv2000Integrator.anexarDocumentos(documentos);
+        return concluirAnexo(p, documentos);
+    }
+
+    /**
+     * Anexo agrupado: os documentos de todos os pedidos do lote em uma transação.
+     * Se o lote falhar, cada pedido é anexado sozinho, para que um documento ruim
+     * não derrube os demais.
+     */
+    private void anexarLote(List<AnexoPendente> lote) {
+        List<AnexoPendente> validos = new ArrayList<>(lote.size());
+        List<DocumentoAnexo> documentos = new ArrayList<>();
 
-            Long cdArquivoPdf = null;
-            Long cdArquivoGrafico = null;
-
-            if (resultado.temPdf()) {
-                String hashPdf = resultado.getHashPdf();
-
-                String descricao = String.format(
-                        "Laudo Hermes Pardini - CD_PED_LAB=%s - CodPedApoio=%s [HASH:%s]",
-                        cdPedLab, codPedApoio, hashPdf
-                );
-                String nomeArquivo = String.format("LAUDO_%s_%s.PDF", cdPedLab, codPedApoio);
-
-                cdArquivoPdf = mv2000Integrator.anexarDocumento(
-                        resultado.getPdfBytes(),
-                        "PDF",
-                        cdAtendimento,
-                        cdPaciente,
-                        descricao,
-                        nomeArquivo,
-                        tpDocLaudo
-                );
-
-                logger.info("PDF anexado: CD_PED_LAB={} -> CD_ARQUIVO_DOCUMENTO={}", cdPedLab, cdArquivoPdf);
+        for (AnexoPendente a : lote) {
+            try {
+                a.documentos = documentosDoPedido(a.pedido);
+                validos.add(a);
+                documentos.addAll(a.documentos);
+            } catch (Exception e) {
+                a.fim.complete(registrarErro(a.pedido.getCdPedLab(), e));
             }
+        }
+
+        if (validos.isEmpty()) return;
 
-            if (resultado.temGrafico()) {
-                String hashGrafico = resultado.getHashGrafico();
-
-                String tipoImagem = Base64Handler.detectFileType(resultado.getGraficoBytes());
-                String descricao = String.format(
-                        "Gráfico Eletroforese - CD_PED_LAB=%s - CodPedApoio=%s [HASH:%s]",
-                        cdPedLab, codPedApoio, hashGrafico
-                );
-                String nomeArquivo = String.format("GRAFICO_%s_%s.%s", cdPedLab, codPedApoio, tipoImagem);
-
-                cdArquivoGrafico = mv2000Integrator.anexarDocumento(
-                        resultado.getGraficoBytes(),
-                        tipoImagem,
-                        cdAtendimento,
-                        cdPaciente,
-                        descricao,
-                        nomeArquivo,
-                        tpDocGrafico
-                );
-
-                logger.info("Gráfico anexado: CD_PED_LAB={} -> CD_ARQUIVO_DOCUMENTO={}", cdPedLab, cdArquivoGrafico);
+        try {
+            comPermissao(dbPermits, () -> {
+                mv2000Integrator.anexarDocumentos(documentos);
+                return null;
+            });
+        } catch (Exception e) {
+            logger.warn("Falha no anexo em lote de {} pedidos ({}); anexando um a um", validos.size(), e.getMessage());
+            for (AnexoPendente a : validos) {
+                try {
+                    a.fim.complete(comPermissao(dbPermits, () -> anexar(a.pedido)));
+                } catch (Exception ex) {
+                    a.fim.complete(registrarErro(a.pedido.getCdPedLab(), ex));
+                }
             }
+            return;
+        }
+
+        for (AnexoPendente a : validos) {
+            a.fim.complete(concluirAnexo(a.pedido, a.documentos));
+        }
+    }
+
+    /**
+     * PDF e gráfico do pedido como documentos do MV2000 (nesta ordem, quando existirem).
+     */
+    private List<DocumentoAnexo> documentosDoPedido(PedidoEmProcessamento p) throws Exception {
+        String cdPedLab = p.getCdPedLab();
+        String codPedApoio = p.getCodPedApoio();
+        Long cdAtendimento = p.getCdAtendimento();
+        Long cdPaciente = p.getCdPaciente();
+
+        ResultadoPardini resultado = p.getResultado();
+        if (resultado == null) {
+            adiar(cdPedLab, "Sem laudo no getResultadoPedido (CodPedApoio=" + codPedApoio + ")");
+            throw new Exception("Não foi possível baixar PDF para CodPedApoio=" + codPedApoio + " (ano default + fallback falharam)");
+        }
 
-            auditLogger.info("SUCESSO|CD_PED_LAB={}|ATEND={}|COD_PED_APOIO={}|PDF={}|GRAFICO={}",
-                    cdPedLab, cdAtendimento, codPedApoio, cdArquivoPdf, cdArquivoGrafico);
+        if (!resultado.isSucesso()) {
+            adiar(cdPedLab, "Pardini: " + resultado.getMensagemErro());
+            throw new Exception("Pardini retornou erro: " + resultado.getMensagemErro());
+        }
+
+        List<DocumentoAnexo> documentos = new ArrayList<>(2);
+
+        if (resultado.temPdf()) {
+            String hashPdf = resultado.getHashPdf();
+
+            String descricao = String.format(
+                    "Laudo Hermes Pardini - CD_PED_LAB=%s - CodPedApoio=%s [HASH:%s]",
+                    cdPedLab, codPedApoio, hashPdf
+            );
+            String nomeArquivo = String.format("LAUDO_%s_%s.PDF", cdPedLab, codPedApoio);
+
+            documentos.add(new DocumentoAnexo(
+                    resultado.getPdf(),
+                    "PDF",
+                    cdAtendimento,
+                    cdPaciente,
+                    descricao,
+                    nomeArquivo,
+                    tpDocLaudo
+            ));
+        }
+
+        if (resultado.temGrafico()) {
+            String hashGrafico = resultado.getHashGrafico();
+
+            String tipoImagem = resultado.getGrafico().getTipo();
+            String descricao = String.format(
+                    "Gráfico Eletroforese - CD_PED_LAB=%s - CodPedApoio=%s [HASH:%s]",
+                    cdPedLab, codPedApoio, hashGrafico
+            );
+            String nomeArquivo = String.format("GRAFICO_%s_%s.%s", cdPedLab, codPedApoio, tipoImagem);
+
+            documentos.add(new DocumentoAnexo(
+                    resultado.getGrafico(),
+                    tipoImagem,
+                    cdAtendimento,
+                    cdPaciente,
+                    descricao,
+                    nomeArquivo,
+                    tpDocGrafico
+            ));
+        }
+
+        return documentos;
+    }
 
-            processados.incrementAndGet();
+    private boolean concluirAnexo(PedidoEmProcessamento p, List<DocumentoAnexo> documentos) {
+        String cdPedLab = p.getCdPedLab();
+        ResultadoPardini resultado = p.getResultado();
+
+        Long cdArquivoPdf = resultado.temPdf() ? documentos.get(0).getCdArquivoDocumento() : null;
+        Long cdArquivoGrafico = resultado.temGrafico() ? documentos.get(documentos.size() - 1).getCdArquivoDocumento() : null;
+
+        if (backoffRepository != null) {
+            liberados.add(cdPedLab);
+        }
+
+        if (!documentos.isEmpty() && documentos.stream().allMatch(DocumentoAnexo::isJaAnexado)) {
+            auditLogger.info("JA_ANEXADO|CD_PED_LAB={}|ATEND={}|COD_PED_APOIO={}|PDF={}|GRAFICO={}",
+                    cdPedLab, p.getCdAtendimento(), p.getCodPedApoio(), cdArquivoPdf, cdArquivoGrafico);
+            jaAnexados.incrementAndGet();
             return true;
+        }
 
-        } catch (Exception e) {
-            logger.error("Erro ao processar CD_PED_LAB={}: {}", cdPedLab, e.getMessage(), e);
-            auditLogger.info("ERRO|CD_PED_LAB={}|{}", cdPedLab, e.getMessage());
-            erros.incrementAndGet();
-            return false;
+        if (cdArquivoPdf != null) {
+            logger.info("PDF anexado: CD_PED_LAB={} -> CD_ARQUIVO_DOCUMENTO={}", cdPedLab, cdArquivoPdf);
+        }
+        if (cdArquivoGrafico != null) {
+            logger.info("Gráfico anexado: CD_PED_LAB={} -> CD_ARQUIVO_DOCUMENTO={}", cdPedLab, cdArquivoGrafico);
         }
+
+        auditLogger.info("SUCESSO|CD_PED_LAB={}|ATEND={}|COD_PED_APOIO={}|PDF={}|GRAFICO={}",
+                cdPedLab, p.getCdAtendimento(), p.getCodPedApoio(), cdArquivoPdf, cdArquivoGrafico);
+
+        processados.incrementAndGet();
+        return true;
     }
 
-    private ResultadoPardini baixarResultadoPedidoComFallbackAno(String codPedApoio) {
-        for (int i = 0; i <= anoFallbackYears; i++) {
-            int ano = anoDefault - i;
-            try {
-                logger.info("Baixando getResultadoPedido: ano={}, CodPedApoio={}", ano, codPedApoio);
-                ResultadoPardini r = hpwsClient.getResultadoPedido(ano, codPedApoio, 1);
+    private boolean registrarErro(String cdPedLab, Throwable e) {
+        logger.error("Erro ao processar CD_PED_LAB={}: {}", cdPedLab, e.getMessage(), e);
+        auditLogger.info("ERRO|CD_PED_LAB={}|{}", cdPedLab, e.getMessage());
+        erros.incrementAndGet();
+        return false;
+    }
 
-                if (r != null && r.isSucesso() && (r.temPdf() || r.temGrafico())) {
-                    return r;
-                }
+    /**
+     * getResultadoPedido assíncrono descobrindo o anoCodPedApoio:
+     * tenta os candidatos do ResolvedorAnoPedido (ano aprendido, vizinho, default, fallback).
+     * Ano já confirmado vai direto ao download completo; os demais passam antes por uma
+     * sonda barata (PDF=0), e o último candidato é baixado sem sonda.
+     * Completa com null quando nenhuma tentativa trouxe PDF/gráfico.
+     */
+    private CompletableFuture<ResultadoPardini> baixarResultadoPedidoComFallbackAnoAsync(String codPedApoio) {
+        List<Integer> anos = resolvedorAno.candidatos(codPedApoio);
+        return tentarAno(codPedApoio, anos, 0, resolvedorAno.conhecido(codPedApoio));
+    }
 
-                if (r != null && !r.isSucesso()) {
-                    logger.warn("Tentativa ano {} falhou: {}", ano, r.getMensagemErro());
-                }
+    private CompletableFuture<ResultadoPardini> tentarAno(String codPedApoio, List<Integer> anos, int tentativa,
+                                                        boolean semSonda) {
+        if (tentativa >= anos.size()) {
+            resolvedorAno.registrarSemAno();
+            return CompletableFuture.completedFuture(null);
+        }
 
-            } catch (Exception e) {
-                logger.warn("Tentativa ano {} lançou exceção: {}", ano, e.getMessage());
-            }
+        boolean ultimo = tentativa == anos.size() - 1;
+        if (semSonda || ultimo || !sondaAno) {
+            return baixarCompleto(codPedApoio, anos, tentativa);
         }
-        return null;
+
+        int ano = anos.get(tentativa);
+        logger.info("Sondando getResultadoPedido (PDF=0): ano={}, CodPedApoio={}", ano, codPedApoio);
+
+        return hpwsClient.getResultadoPedidoAsync(ano, codPedApoio, 0, download.getExecutor())
+                .thenCompose(sonda -> {
+                    boolean encontrou = sonda != null && sonda.isSucesso();
+                    resolvedorAno.registrarSonda(encontrou);
+
+                    if (encontrou) {
+                        return baixarCompleto(codPedApoio, anos, tentativa);
+                    }
+
+                    logger.info("Sonda ano {} sem pedido: {}", ano, sonda != null ? sonda.getMensagemErro() : null);
+                    return tentarAno(codPedApoio, anos, tentativa + 1, false);
+                });
+    }
+
+    private CompletableFuture<ResultadoPardini> baixarCompleto(String codPedApoio, List<Integer> anos, int tentativa) {
+        int ano = anos.get(tentativa);
+        logger.info("Baixando getResultadoPedido: ano={}, CodPedApoio={}", ano, codPedApoio);
+
+        return hpwsClient.getResultadoPedidoAsync(ano, codPedApoio, 1, download.getExecutor())
+                .thenCompose(r -> {
+                    boolean ok = r != null && r.isSucesso() && (r.temPdf() || r.temGrafico());
+                    resolvedorAno.registrarDownloadCompleto(ok);
+
+                    if (ok) {
+                        resolvedorAno.aprender(codPedApoio, ano, tentativa);
+                        return CompletableFuture.completedFuture(r);
+                    }
+
+                    if (r != null && !r.isSucesso()) {
+                        logger.warn("Tentativa ano {} falhou: {}", ano, r.getMensagemErro());
+                    }
+
+                    return tentarAno(codPedApoio, anos, tentativa + 1, false);
+                });
     }
 
     private boolean isBlank(String s) {
@@ -258,18 +928,32 @@ public class IntegracaoWorker {
 
     public void shutdown() {
         logger.info("Encerrando worker...");
-        executorService.shutdown();
-        try {
-            if (!executorService.awaitTermination(60, TimeUnit.SECONDS)) {
-                executorService.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            executorService.shutdownNow();
-            Thread.currentThread().interrupt();
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        resolucao.shutdown();
+        download.shutdown();
+        anexo.shutdown();
+        if (leaseRepository != null) {
+            liberarTodosLeases();
         }
         logger.info("Worker encerrado");
     }
 
     public int getProcessados() { return processados.get(); }
     public int getErros() { return erros.get(); }
+    /** O último ciclo parou no orçamento com pendentes ainda por percorrer (keyset no meio). */
+    public boolean isBacklogRestante() { return cursorPendentes != null; }
+
+    /** Pedido aguardando o anexo em lote, com o future que encerra o item no ciclo. */
+    private static final class AnexoPendente {
+        final PedidoEmProcessamento pedido;
+        final CompletableFuture<Boolean> fim;
+        List<DocumentoAnexo> documentos;
+
+        AnexoPendente(PedidoEmProcessamento pedido, CompletableFuture<Boolean> fim) {
+            this.pedido = pedido;
+            this.fim = fim;
+        }
+    }
 }
@@ -0,0 +1,77 @@
+package br.com.rerono.worker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Agrupa os pedidos que chegam ao estágio de anexo para gravá-los em um só commit.
+ *
+ * Descarrega quando junta {@code tamanho} itens ou quando nenhum outro item do ciclo
+ * ainda pode chegar (todos já chegaram ou saíram antes do anexo), para o último lote
+ * não ficar parado esperando completar.
+ */
+final class LoteAnexo<T> {
+
+    private final int tamanho;
+    private final Consumer<List<T>> descarregar;
+
+    private final List<T> buffer = new ArrayList<>();
+    private int aCaminho;
+
+    LoteAnexo(int tamanho, Consumer<List<T>> descarregar) {
+        this.tamanho = Math.max(1, tamanho);
+        this.descarregar = descarregar;
+    }
+
+    /** Mais itens entrando no pipeline (uma página de pendentes): podem chegar ao anexo. */
+    synchronized void prever(int itens) {
+        aCaminho += itens;
+    }
+
+    /** O item chegou ao anexo. */
+    void adicionar(T item) {
+        List<T> pronto;
+        synchronized (this) {
+            buffer.add(item);
+            aCaminho--;
+            pronto = retirarSePronto();
+        }
+        if (pronto != null) descarregar.accept(pronto);
+    }
+
+    /** O item terminou antes do anexo (descartado ou com erro). */
+    void descartar() {
+        List<T> pronto;
+        synchronized (this) {
+            aCaminho--;
+            pronto = retirarSePronto();
+        }
+        if (pronto != null) descarregar.accept(pronto);
+    }
+
+    /**
+     * Fim do ciclo: descarrega o que sobrou (ex.: após timeout). A previsão fica como está:
+     * itens do ciclo que ainda estão no pipeline descontam a si mesmos ao chegar, e zerar
+     * aqui deixaria o contador negativo, descarregando o próximo ciclo item a item.
+     */
+    void descarregarRestante() {
+        List<T> pronto;
+        synchronized (this) {
+            pronto = buffer.isEmpty() ? null : retirar();
+        }
+        if (pronto != null) descarregar.accept(pronto);
+    }
+
+    private List<T> retirarSePronto() {
+        if (buffer.isEmpty()) return null;
+        if (buffer.size() >= tamanho || aCaminho <= 0) return retirar();
+        return null;
+    }
+
+    private List<T> retirar() {
+        List<T> pronto = new ArrayList<>(buffer);
+        buffer.clear();
+        return pronto;
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.rerono.worker;
+
+import br.com.rerono.model.ResultadoPardini;
+
+/**
+ * Estado de um CD_PED_LAB entre as etapas do worker
+ * (resolução no MV2000 -> download no Pardini -> anexo).
+ */
+class PedidoEmProcessamento {
+
+    private final String cdPedLab;
+    private final String codPedApoio;
+    private final Long cdAtendimento;
+    private final Long cdPaciente;
+
+    private ResultadoPardini resultado;
+
+    PedidoEmProcessamento(String cdPedLab, String codPedApoio, Long cdAtendimento, Long cdPaciente) {
+        this.cdPedLab = cdPedLab;
+        this.codPedApoio = codPedApoio;
+        this.cdAtendimento = cdAtendimento;
+        this.cdPaciente = cdPaciente;
+    }
+
+    String getCdPedLab() { return cdPedLab; }
+    String getCodPedApoio() { return codPedApoio; }
+    Long getCdAtendimento() { return cdAtendimento; }
+    Long getCdPaciente() { return cdPaciente; }
+
+    ResultadoPardini getResultado() { return resultado; }
+
+    PedidoEmProcessamento comResultado(ResultadoPardini resultado) {
+        this.resultado = resultado;
+        return this;
+    }
+}
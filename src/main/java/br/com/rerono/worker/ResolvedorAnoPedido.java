@@ -0,0 +1,172 @@
+package br.com.rerono.worker;
+
+import br.com.rerono.persistence.AnoPedidoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decide a ordem dos anos a tentar no getResultadoPedido de um CodPedApoio,
+ * aprendendo com as tentativas que deram certo.
+ *
+ * Ordem dos candidatos:
+ * 1) ano já confirmado para o CodPedApoio (RERONO_ANO_PEDIDO)
+ * 2) ano do CodPedApoio numérico mais próximo já confirmado (vizinhos na faixa
+ *    costumam ser do mesmo ano), se estiver a até pardini.ano.vizinho.distancia
+ * 3) anoDefault, anoDefault-1, ... (fallbackYears)
+ *
+ * Os anos aprendidos ficam em memória e são gravados em lote no fim do ciclo.
+ */
+public class ResolvedorAnoPedido {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResolvedorAnoPedido.class);
+
+    private static final int MAX_CARGA = 200_000;
+
+    private final AnoPedidoRepository repository;
+    private final int anoDefault;
+    private final int anoFallbackYears;
+    private final long distanciaVizinho;
+
+    private final ConcurrentHashMap<String, Integer> anos = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Integer> anosPorCodigo = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Integer> pendentesGravacao = new ConcurrentHashMap<>();
+
+    // métricas (acumuladas desde o startup)
+    private final AtomicLong primeiraTentativa = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong semAno = new AtomicLong();
+    private final AtomicLong sondas = new AtomicLong();
+    private final AtomicLong sondasNegativas = new AtomicLong();
+    private final AtomicLong downloadsCompletos = new AtomicLong();
+    private final AtomicLong downloadsDesperdicados = new AtomicLong();
+
+    public ResolvedorAnoPedido(AnoPedidoRepository repository, int anoDefault, int anoFallbackYears, long distanciaVizinho) {
+        this.repository = repository;
+        this.anoDefault = anoDefault;
+        this.anoFallbackYears = anoFallbackYears;
+        this.distanciaVizinho = distanciaVizinho;
+    }
+
+    public void carregar() {
+        try {
+            Map<String, Integer> carregados = repository.carregarRecentes(MAX_CARGA);
+            carregados.forEach(this::memorizar);
+            logger.info("Anos de CodPedApoio aprendidos carregados: {}", carregados.size());
+        } catch (Exception e) {
+            logger.warn("Falha ao carregar anos aprendidos (segue com anoDefault + fallback): {}", e.getMessage());
+        }
+    }
+
+    /** true quando o ano do CodPedApoio já foi confirmado antes. */
+    public boolean conhecido(String codPedApoio) {
+        return anos.containsKey(codPedApoio);
+    }
+
+    public List<Integer> candidatos(String codPedApoio) {
+        Set<Integer> out = new LinkedHashSet<>();
+
+        Integer exato = anos.get(codPedApoio);
+        if (exato != null) out.add(exato);
+
+        Integer vizinho = anoDoVizinho(codPedApoio);
+        if (vizinho != null) out.add(vizinho);
+
+        for (int i = 0; i <= anoFallbackYears; i++) {
+            out.add(anoDefault - i);
+        }
+
+        return new ArrayList<>(out);
+    }
+
+    private Integer anoDoVizinho(String codPedApoio) {
+        Long cod = comoNumero(codPedApoio);
+        if (cod == null || distanciaVizinho <= 0) return null;
+
+        Map.Entry<Long, Integer> abaixo = anosPorCodigo.floorEntry(cod);
+        Map.Entry<Long, Integer> acima = anosPorCodigo.ceilingEntry(cod);
+
+        Map.Entry<Long, Integer> maisPerto;
+        if (abaixo == null) maisPerto = acima;
+        else if (acima == null) maisPerto = abaixo;
+        else maisPerto = (cod - abaixo.getKey() <= acima.getKey() - cod) ? abaixo : acima;
+
+        if (maisPerto == null || Math.abs(maisPerto.getKey() - cod) > distanciaVizinho) return null;
+        return maisPerto.getValue();
+    }
+
+    /**
+     * Registra o ano que funcionou. {@code tentativa} = posição do ano na lista de candidatos.
+     */
+    public void aprender(String codPedApoio, int ano, int tentativa) {
+        if (tentativa == 0) primeiraTentativa.incrementAndGet();
+        else fallbacks.incrementAndGet();
+
+        Integer anterior = anos.get(codPedApoio);
+        if (anterior == null || anterior != ano) {
+            memorizar(codPedApoio, ano);
+            pendentesGravacao.put(codPedApoio, ano);
+        }
+    }
+
+    public void registrarSemAno() { semAno.incrementAndGet(); }
+    public void registrarSonda(boolean encontrou) {
+        sondas.incrementAndGet();
+        if (!encontrou) sondasNegativas.incrementAndGet();
+    }
+    public void registrarDownloadCompleto(boolean aproveitado) {
+        downloadsCompletos.incrementAndGet();
+        if (!aproveitado) downloadsDesperdicados.incrementAndGet();
+    }
+
+    /** Grava em lote os anos aprendidos desde a última chamada. */
+    public void persistir() {
+        if (pendentesGravacao.isEmpty()) return;
+
+        Map<String, Integer> lote = new HashMap<>();
+        for (String cod : pendentesGravacao.keySet()) {
+            Integer ano = pendentesGravacao.remove(cod);
+            if (ano != null) lote.put(cod, ano);
+        }
+
+        try {
+            repository.gravar(lote);
+        } catch (Exception e) {
+            logger.warn("Falha ao gravar {} anos aprendidos (nova tentativa no próximo ciclo): {}", lote.size(), e.getMessage());
+            lote.forEach(pendentesGravacao::putIfAbsent);
+        }
+    }
+
+    public String getEstatisticas() {
+        long ok = primeiraTentativa.get() + fallbacks.get();
+        return String.format("anosConhecidos=%d, acertoPrimeiraTentativa=%d, fallback=%d (%.1f%%), semAno=%d, sondas=%d (negativas=%d), downloadsCompletos=%d (desperdiçados=%d)",
+                anos.size(), primeiraTentativa.get(), fallbacks.get(),
+                ok == 0 ? 0.0 : fallbacks.get() * 100.0 / ok,
+                semAno.get(), sondas.get(), sondasNegativas.get(),
+                downloadsCompletos.get(), downloadsDesperdicados.get());
+    }
+
+    private void memorizar(String codPedApoio, int ano) {
+        anos.put(codPedApoio, ano);
+        Long cod = comoNumero(codPedApoio);
+        if (cod != null) anosPorCodigo.put(cod, ano);
+    }
+
+    private static Long comoNumero(String s) {
+        if (s == null) return null;
+        try {
+            return Long.parseLong(s.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
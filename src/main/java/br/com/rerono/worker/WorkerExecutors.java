@@ -0,0 +1,77 @@
+package br.com.rerono.worker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Criação dos executors do worker.
+ *
+ * - fixed:   pool fixo de threads de plataforma (daemon, nomeadas)
+ * - virtual: uma virtual thread por tarefa (Java 21+); em Java 17 cai no pool fixo
+ *
+ * Executors.newVirtualThreadPerTaskExecutor é obtido via MethodHandle para o
+ * mesmo jar (bytecode 17) rodar em 17 e em 21.
+ */
+public final class WorkerExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerExecutors.class);
+
+    public static final String FIXED = "fixed";
+    public static final String VIRTUAL = "virtual";
+
+    private static final MethodHandle NEW_VIRTUAL = localizarVirtual();
+
+    private WorkerExecutors() {
+    }
+
+    private static MethodHandle localizarVirtual() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /** true quando a JVM atual oferece virtual threads. */
+    public static boolean virtualDisponivel() {
+        return NEW_VIRTUAL != null;
+    }
+
+    /**
+     * @param tipo     fixed | virtual
+     * @param poolSize tamanho do pool fixo (ignorado no modo virtual)
+     * @param nome     prefixo do nome das threads do pool fixo
+     */
+    public static ExecutorService criar(String tipo, int poolSize, String nome) {
+        if (VIRTUAL.equalsIgnoreCase(tipo)) {
+            if (NEW_VIRTUAL != null) {
+                try {
+                    return (ExecutorService) NEW_VIRTUAL.invokeExact();
+                } catch (Throwable e) {
+                    logger.warn("Falha ao criar executor de virtual threads ({}); usando pool fixo", e.getMessage());
+                }
+            } else {
+                logger.warn("worker.executor=virtual requer Java 21+ (atual: {}); usando pool fixo de {} threads",
+                        System.getProperty("java.version"), poolSize);
+            }
+        }
+        return fixo(poolSize, nome);
+    }
+
+    public static ExecutorService fixo(int poolSize, String nome) {
+        AtomicInteger seq = new AtomicInteger();
+        return Executors.newFixedThreadPool(poolSize, r -> {
+            Thread t = new Thread(r, nome + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package br.com.rerono.soap;
+
+import br.com.rerono.model.ResultadoPardini;
+import br.com.rerono.soap.ResultadoPedidoParser.TipoArtefato;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultadoPedidoParserTest {
+
+    private static final String PDF = Base64.getEncoder().encodeToString("%PDF-1.4 laudo".getBytes(StandardCharsets.US_ASCII));
+    private static final String PNG = Base64.getEncoder().encodeToString(new byte[] {(byte) 0x89, 'P', 'N', 'G'});
+
+    private final ResultadoPedidoParser parser = new ResultadoPedidoParser();
+
+    private final List<TipoArtefato> tipos = new ArrayList<>();
+    private final List<String> conteudos = new ArrayList<>();
+
+    @Test
+    void envelopeComPdfEGrafico() {
+        String xml = envelope(
+                "<CodigoRetorno>0</CodigoRetorno>" +
+                "<Laudo><PDF>" + PDF.substring(0, 8) + "\n" + PDF.substring(8) + "</PDF></Laudo>" +
+                "<Grafico><![CDATA[" + PNG + "]]></Grafico>");
+
+        ResultadoPardini r = parse(xml, true);
+
+        assertTrue(r.isSucesso());
+        assertEquals("0", r.getCodigoRetorno());
+        assertNull(r.getMensagemErro());
+        assertEquals(List.of(TipoArtefato.PDF, TipoArtefato.GRAFICO), tipos);
+        assertEquals(PDF.substring(0, 8) + "\n" + PDF.substring(8), conteudos.get(0));
+        assertEquals(PNG, conteudos.get(1));
+    }
+
+    @Test
+    void tagsSemDiferenciarMaiusculas() {
+        ResultadoPardini r = parse(envelope("<pdf>" + PDF + "</pdf><GRAFICO>" + PNG + "</GRAFICO>"), true);
+
+        assertTrue(r.isSucesso());
+        assertEquals(List.of(TipoArtefato.PDF, TipoArtefato.GRAFICO), tipos);
+    }
+
+    @Test
+    void artefatoNaoLidoPeloConsumidorEDrenado() {
+        String xml = envelope("<PDF>" + PDF + "</PDF><CodigoRetorno>7</CodigoRetorno>");
+
+        ResultadoPardini r = new ResultadoPardini();
+        parser.parse(entrada(xml), r, (tipo, base64) -> false);
+
+        assertEquals("7", r.getCodigoRetorno());
+        assertTrue(r.isSucesso());
+    }
+
+    @Test
+    void mensagemDeErroSemArtefatoFalha() {
+        ResultadoPardini r = parse(envelope(
+                "<CodigoRetorno>99</CodigoRetorno><MensagemErro> Pedido não liberado </MensagemErro>"), true);
+
+        assertFalse(r.isSucesso());
+        assertEquals("99", r.getCodigoRetorno());
+        assertEquals("Pedido não liberado", r.getMensagemErro());
+        assertTrue(tipos.isEmpty());
+    }
+
+    @Test
+    void mensagemDeErroComArtefatoAceitoSegueComSucesso() {
+        ResultadoPardini r = parse(envelope("<MensagemErro>parcial</MensagemErro><PDF>" + PDF + "</PDF>"), true);
+
+        assertTrue(r.isSucesso());
+        assertEquals("parcial", r.getMensagemErro());
+    }
+
+    @Test
+    void soapFaultComDetalhe() {
+        String xml =
+                "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>" +
+                "<soap:Fault><faultcode>soap:Server</faultcode><faultstring>Login inválido</faultstring>" +
+                "<detail><info>usuário bloqueado</info></detail></soap:Fault>" +
+                "</soap:Body></soap:Envelope>";
+
+        ResultadoPardini r = parse(xml, true);
+
+        assertFalse(r.isSucesso());
+        assertEquals("Login inválido: usuário bloqueado", r.getMensagemErro());
+    }
+
+    @Test
+    void xmlTruncadoViraErroDeParse() {
+        ResultadoPardini r = parse("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body><PDF>"
+                + PDF, true);
+
+        assertFalse(r.isSucesso());
+        assertTrue(r.getMensagemErro().startsWith("Erro no parse"), r.getMensagemErro());
+    }
+
+    private ResultadoPardini parse(String xml, boolean aceitar) {
+        ResultadoPardini r = new ResultadoPardini();
+        parser.parse(entrada(xml), r, (tipo, base64) -> {
+            tipos.add(tipo);
+            conteudos.add(ler(base64));
+            return aceitar;
+        });
+        return r;
+    }
+
+    private static String envelope(String corpo) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>" +
+                "<getResultadoPedidoResponse xmlns=\"http://hpws.pardini.com.br/\"><return>" +
+                corpo +
+                "</return></getResultadoPedidoResponse></soap:Body></soap:Envelope>";
+    }
+
+    private static ByteArrayInputStream entrada(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String ler(Reader r) throws IOException {
+        StringWriter out = new StringWriter();
+        char[] buf = new char[5];   // buffer pequeno: força várias leituras por elemento
+        int n;
+        while ((n = r.read(buf)) != -1) {
+            out.write(buf, 0, n);
+        }
+        return out.toString();
+    }
+}
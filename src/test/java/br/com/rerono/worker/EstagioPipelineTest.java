@@ -0,0 +1,157 @@
+package br.com.rerono.worker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EstagioPipelineTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final ExecutorService remetente = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void encerrar() {
+        remetente.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void enviarBloqueiaComExecucaoEFilaCheias() throws Exception {
+        EstagioPipeline estagio = new EstagioPipeline("teste", executor, 1, 1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch executando = new CountDownLatch(1);
+
+        estagio.enviar(() -> {
+            executando.countDown();
+            aguardar(liberar);
+        });
+        assertTrue(executando.await(5, TimeUnit.SECONDS));
+        estagio.enviar(() -> { });    // ocupa a vaga da fila
+
+        CompletableFuture<Void> terceiro = CompletableFuture.runAsync(() -> enviarSemErro(estagio, () -> { }), remetente);
+        assertThrows(TimeoutException.class, () -> terceiro.get(200, TimeUnit.MILLISECONDS));
+
+        liberar.countDown();
+        terceiro.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void emExecucaoLimitaAConcorrenciaMesmoComMaisThreads() throws Exception {
+        EstagioPipeline estagio = new EstagioPipeline("teste", executor, 2, 10);
+        AtomicInteger simultaneos = new AtomicInteger();
+        AtomicInteger pico = new AtomicInteger();
+        CountDownLatch fim = new CountDownLatch(8);
+
+        for (int i = 0; i < 8; i++) {
+            estagio.enviar(() -> {
+                pico.accumulateAndGet(simultaneos.incrementAndGet(), Math::max);
+                dormir(20);
+                simultaneos.decrementAndGet();
+                fim.countDown();
+            });
+        }
+
+        assertTrue(fim.await(5, TimeUnit.SECONDS));
+        assertTrue(pico.get() <= 2, "pico de " + pico.get() + " tarefas simultâneas");
+    }
+
+    @Test
+    void tarefaComExcecaoDevolveAVaga() throws Exception {
+        EstagioPipeline estagio = new EstagioPipeline("teste", executor, 1, 0);
+
+        estagio.enviar(() -> { throw new IllegalStateException("falha simulada"); });
+
+        CompletableFuture<Void> proximo = CompletableFuture.runAsync(() -> enviarSemErro(estagio, () -> { }), remetente);
+        proximo.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void enviarAsyncSeguraAVagaAteOFutureCompletar() throws Exception {
+        EstagioPipeline estagio = new EstagioPipeline("teste", executor, 1, 0);
+        CompletableFuture<String> operacao = new CompletableFuture<>();
+        AtomicReference<String> recebido = new AtomicReference<>();
+        CountDownLatch callback = new CountDownLatch(2);
+
+        estagio.enviarAsync(() -> operacao, (r, e) -> {
+            recebido.set(r);
+            callback.countDown();
+        });
+
+        CompletableFuture<Void> segundo = CompletableFuture.runAsync(() -> {
+            try {
+                estagio.enviarAsync(() -> CompletableFuture.completedFuture("b"), (r, e) -> callback.countDown());
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }, remetente);
+        assertThrows(TimeoutException.class, () -> segundo.get(200, TimeUnit.MILLISECONDS));
+
+        operacao.complete("a");
+        segundo.get(5, TimeUnit.SECONDS);
+        assertTrue(callback.await(5, TimeUnit.SECONDS));
+        assertEquals("a", recebido.get());
+    }
+
+    @Test
+    void enviarAsyncComFalhaAoIniciarEntregaOErroEDevolveAVaga() throws Exception {
+        EstagioPipeline estagio = new EstagioPipeline("teste", executor, 1, 0);
+        AtomicReference<Throwable> erro = new AtomicReference<>();
+        CountDownLatch callback = new CountDownLatch(1);
+
+        estagio.enviarAsync(() -> { throw new IllegalStateException("falha simulada"); }, (r, e) -> {
+            erro.set(e);
+            callback.countDown();
+        });
+
+        assertTrue(callback.await(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, erro.get());
+
+        CompletableFuture<Void> proximo = CompletableFuture.runAsync(() -> {
+            try {
+                estagio.enviarAsync(() -> CompletableFuture.completedFuture("ok"), (r, e) -> { });
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }, remetente);
+        proximo.get(5, TimeUnit.SECONDS);
+        assertFalse(proximo.isCompletedExceptionally());
+    }
+
+    private static void enviarSemErro(EstagioPipeline estagio, Runnable tarefa) {
+        try {
+            estagio.enviar(tarefa);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
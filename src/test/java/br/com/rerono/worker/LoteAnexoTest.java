@@ -0,0 +1,88 @@
+package br.com.rerono.worker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoteAnexoTest {
+
+    private final List<List<String>> descarregados = new ArrayList<>();
+    private final LoteAnexo<String> lote = new LoteAnexo<>(2, descarregados::add);
+
+    @Test
+    void descarregaAoCompletarOTamanho() {
+        lote.prever(3);
+        lote.adicionar("a");
+        assertTrue(descarregados.isEmpty());
+
+        lote.adicionar("b");
+        assertEquals(List.of(List.of("a", "b")), descarregados);
+    }
+
+    @Test
+    void ultimoLoteSaiQuandoNadaMaisPodeChegar() {
+        lote.prever(3);
+        lote.adicionar("a");
+        lote.adicionar("b");
+        lote.adicionar("c");
+
+        assertEquals(List.of(List.of("a", "b"), List.of("c")), descarregados);
+    }
+
+    @Test
+    void descarteLiberaOLoteIncompleto() {
+        lote.prever(2);
+        lote.adicionar("a");
+        assertTrue(descarregados.isEmpty());
+
+        lote.descartar();
+        assertEquals(List.of(List.of("a")), descarregados);
+    }
+
+    @Test
+    void descarregarRestanteEsvaziaOBuffer() {
+        lote.prever(3);
+        lote.adicionar("a");
+
+        lote.descarregarRestante();
+        assertEquals(List.of(List.of("a")), descarregados);
+
+        lote.descarregarRestante();
+        assertEquals(1, descarregados.size());
+    }
+
+    @Test
+    void itemAtrasadoNaoDesfazOLoteDoCicloSeguinte() {
+        // ciclo 1: dois previstos, um fica no pipeline após o timeout
+        lote.prever(2);
+        lote.adicionar("a");
+        lote.descarregarRestante();
+        lote.descartar();
+
+        // ciclo 2: a contagem voltou a zero, então o lote volta a juntar dois itens
+        lote.prever(2);
+        lote.adicionar("b");
+        lote.adicionar("c");
+
+        assertEquals(List.of(List.of("a"), List.of("b", "c")), descarregados);
+    }
+
+    @Test
+    void itemAtrasadoQueChegaEntraNoLoteDoCicloSeguinte() {
+        lote.prever(2);
+        lote.adicionar("a");
+        lote.descarregarRestante();
+
+        lote.prever(2);
+        lote.adicionar("atrasado");
+        lote.adicionar("b");
+        assertEquals(List.of(List.of("a"), List.of("atrasado", "b")), descarregados);
+
+        lote.adicionar("c");
+        assertEquals(List.of("c"), descarregados.get(2));
+    }
+}
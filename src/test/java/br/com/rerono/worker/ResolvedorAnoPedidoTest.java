@@ -0,0 +1,77 @@
+package br.com.rerono.worker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Só a ordem dos candidatos: sem carregar() nem persistir(), o repositório não é usado.
+ */
+class ResolvedorAnoPedidoTest {
+
+    private final ResolvedorAnoPedido resolvedor = new ResolvedorAnoPedido(null, 2026, 2, 1000);
+
+    @Test
+    void semHistoricoUsaAnoDefaultEFallback() {
+        assertEquals(List.of(2026, 2025, 2024), resolvedor.candidatos("123456"));
+    }
+
+    @Test
+    void anoConfirmadoVemPrimeiroSemRepetir() {
+        resolvedor.aprender("123456", 2025, 1);
+
+        assertTrue(resolvedor.conhecido("123456"));
+        assertEquals(List.of(2025, 2026, 2024), resolvedor.candidatos("123456"));
+    }
+
+    @Test
+    void vizinhoNaDistanciaVemAntesDoDefault() {
+        resolvedor.aprender("500000", 2023, 3);
+
+        assertEquals(List.of(2023, 2026, 2025, 2024), resolvedor.candidatos("500800"));
+        assertFalse(resolvedor.conhecido("500800"));
+    }
+
+    @Test
+    void vizinhoAlemDaDistanciaEIgnorado() {
+        resolvedor.aprender("500000", 2023, 3);
+
+        assertEquals(List.of(2026, 2025, 2024), resolvedor.candidatos("501001"));
+    }
+
+    @Test
+    void vizinhoMaisProximoVenceEmpateFicaComOdeBaixo() {
+        resolvedor.aprender("1000", 2022, 0);
+        resolvedor.aprender("1200", 2021, 0);
+
+        assertEquals(2021, resolvedor.candidatos("1150").get(0));
+        assertEquals(2022, resolvedor.candidatos("1100").get(0));
+    }
+
+    @Test
+    void exatoAntesDoVizinho() {
+        resolvedor.aprender("1000", 2022, 0);
+        resolvedor.aprender("1001", 2020, 0);
+
+        assertEquals(List.of(2020, 2026, 2025, 2024), resolvedor.candidatos("1001"));
+    }
+
+    @Test
+    void codigoNaoNumericoNaoUsaVizinho() {
+        resolvedor.aprender("1000", 2022, 0);
+
+        assertEquals(List.of(2026, 2025, 2024), resolvedor.candidatos("AB1000"));
+    }
+
+    @Test
+    void distanciaZeroDesligaOVizinho() {
+        ResolvedorAnoPedido semVizinho = new ResolvedorAnoPedido(null, 2026, 1, 0);
+        semVizinho.aprender("1000", 2022, 0);
+
+        assertEquals(List.of(2026, 2025), semVizinho.candidatos("1001"));
+    }
+}